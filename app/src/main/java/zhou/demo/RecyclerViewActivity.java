@@ -19,6 +19,7 @@ import com.zzhoujay.richtext.RichText;
 import com.zzhoujay.richtext.callback.ImageFixCallback;
 import com.zzhoujay.richtext.callback.OnImageClickListener;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -91,6 +92,8 @@ public class RecyclerViewActivity extends AppCompatActivity {
 
         RecyclerView recyclerView = (RecyclerView) findViewById(R.id.recyclerView);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        // 列表项还没有显示时先在后台解析并下载图片
+        RichText.prefetch(this, Arrays.asList(testString1), null);
         recyclerView.setAdapter(new RecyclerView.Adapter() {
             @Override
             public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -0,0 +1,71 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.ext.Base64;
+import com.zzhoujay.richtext.ext.DataUri;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * data URI图片的解码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class Base64Benchmark {
+
+    @Param({"10240", "102400", "1048576", "5242880"})
+    public int bytes;
+
+    private String dataUri;
+    private String httpUrl;
+    private byte[] buffer;
+
+    @Setup
+    public void setup() {
+        dataUri = Corpus.dataUri(bytes);
+        httpUrl = "http://example.com/images/" + bytes + ".png";
+        buffer = new byte[16 * 1024];
+    }
+
+    @Benchmark
+    public byte[] decodeDataUri() {
+        return Base64.decode(dataUri);
+    }
+
+    /**
+     * 解析时只识别头部并计算内容哈希
+     */
+    @Benchmark
+    public DataUri parseDataUri() {
+        return DataUri.parse(dataUri);
+    }
+
+    /**
+     * Glide加载时边读边解码，不分配完整的byte[]
+     */
+    @Benchmark
+    public int streamDataUri() throws IOException {
+        InputStream in = DataUri.parse(dataUri).openStream();
+        int total = 0, n;
+        while ((n = in.read(buffer)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * 普通图片地址也会经过一次data URI的判断
+     */
+    @Benchmark
+    public byte[] decodeHttpUrl() {
+        return Base64.decode(httpUrl);
+    }
+}
@@ -0,0 +1,85 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.cache.SoftLruCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * 多线程同时读写解析结果缓存，模拟列表快速滑动时多个TextView同时查询缓存
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+public class CacheBenchmark {
+
+    private static final int KEY_COUNT = 4096;
+    private static final int VALUE_LENGTH = 2048;
+
+    private SoftLruCache<String, String> cache;
+    private String[] keys;
+    private String value;
+
+    @Setup
+    public void setup() {
+        // 缓存只能容纳一半的key，读写都会触发淘汰
+        cache = new SoftLruCache<String, String>((long) KEY_COUNT / 2 * VALUE_LENGTH * 2) {
+            @Override
+            protected long sizeOf(String key, String value) {
+                return value.length() * 2;
+            }
+        };
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key_" + i;
+        }
+        char[] chars = new char[VALUE_LENGTH];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + i % 26);
+        }
+        value = new String(chars);
+        for (int i = 0; i < KEY_COUNT; i += 2) {
+            cache.put(keys[i], value);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(3)
+    public String readHeavyGet(ThreadState state) {
+        return cache.get(keys[state.random.nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public void readHeavyPut(ThreadState state) {
+        cache.put(keys[state.random.nextInt(KEY_COUNT)], value);
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public String balancedGet(ThreadState state) {
+        return cache.get(keys[state.random.nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    @Group("balanced")
+    @GroupThreads(2)
+    public void balancedPut(ThreadState state) {
+        cache.put(keys[state.random.nextInt(KEY_COUNT)], value);
+    }
+}
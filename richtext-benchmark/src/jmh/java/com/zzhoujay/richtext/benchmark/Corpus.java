@@ -0,0 +1,167 @@
+package com.zzhoujay.richtext.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试使用的文本，由固定的随机种子生成，每次运行的内容完全一致
+ */
+public final class Corpus {
+
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String HUGE = "huge";
+
+    private static final long SEED = 20161115L;
+    private static final String WORDS = "the quick brown fox jumps over lazy dog rich text span image link list code quote";
+    private static final char[] BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private Corpus() {
+    }
+
+    /**
+     * 生成Html帖子
+     *
+     * @param size {@link #SMALL}（约2KB，2张图片）、{@link #MEDIUM}（约64KB，约60张图片）、{@link #HUGE}（约2MB，约2000张图片）
+     * @return html
+     */
+    public static String html(String size) {
+        switch (size) {
+            case SMALL:
+                return html(2 * 1024, 1);
+            case MEDIUM:
+                return html(64 * 1024, 1);
+            case HUGE:
+                return html(2 * 1024 * 1024, 1);
+            default:
+                throw new IllegalArgumentException("unknown size: " + size);
+        }
+    }
+
+    /**
+     * 生成包含深层嵌套列表的Html
+     *
+     * @param size  同{@link #html(String)}
+     * @param depth 列表嵌套的层数
+     * @return html
+     */
+    public static String nestedLists(String size, int depth) {
+        int length;
+        switch (size) {
+            case SMALL:
+                length = 2 * 1024;
+                break;
+            case MEDIUM:
+                length = 64 * 1024;
+                break;
+            case HUGE:
+                length = 2 * 1024 * 1024;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown size: " + size);
+        }
+        return html(length, depth);
+    }
+
+    private static String html(int length, int listDepth) {
+        Random random = new Random(SEED);
+        String[] words = WORDS.split(" ");
+        StringBuilder sb = new StringBuilder(length + 1024);
+        int image = 0;
+        while (sb.length() < length) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    // 不同写法的图片标签，部分图片重复出现
+                    int id = random.nextInt(4) == 0 ? 0 : image++;
+                    String ext = random.nextInt(8) == 0 ? "gif" : "jpg";
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            sb.append("<p><img src=\"http://example.com/images/").append(id).append('.').append(ext)
+                                    .append("\" width=\"").append(100 + random.nextInt(900)).append("\" height=\"")
+                                    .append(100 + random.nextInt(900)).append("\"/></p>\n");
+                            break;
+                        case 1:
+                            sb.append("<p><img alt='pic' src='http://example.com/images/").append(id).append('.').append(ext)
+                                    .append("?a=1&amp;b=2'></p>\n");
+                            break;
+                        default:
+                            sb.append("<p><img src=http://example.com/images/").append(id).append('.').append(ext).append("></p>\n");
+                            break;
+                    }
+                    break;
+                case 1:
+                    appendList(sb, random, words, listDepth);
+                    break;
+                case 2:
+                    sb.append("<pre><code>");
+                    appendWords(sb, random, words, 20);
+                    sb.append("</code></pre>\n");
+                    break;
+                default:
+                    sb.append("<p>");
+                    appendWords(sb, random, words, 10);
+                    sb.append(" <b>");
+                    appendWords(sb, random, words, 3);
+                    sb.append("</b> <a href=\"http://example.com/page/").append(random.nextInt(1000)).append("\">");
+                    appendWords(sb, random, words, 2);
+                    sb.append("</a> ");
+                    appendWords(sb, random, words, 10);
+                    sb.append("</p>\n");
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendList(StringBuilder sb, Random random, String[] words, int depth) {
+        boolean ordered = random.nextBoolean();
+        sb.append(ordered ? "<ol>" : "<ul>");
+        int items = 2 + random.nextInt(3);
+        for (int i = 0; i < items; i++) {
+            sb.append("<li>");
+            appendWords(sb, random, words, 4);
+            if (depth > 1 && i == 0) {
+                appendList(sb, random, words, depth - 1);
+            }
+            sb.append("</li>");
+        }
+        sb.append(ordered ? "</ol>\n" : "</ul>\n");
+    }
+
+    private static void appendWords(StringBuilder sb, Random random, String[] words, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(words[random.nextInt(words.length)]);
+        }
+    }
+
+    /**
+     * 生成Base64编码的data URI
+     *
+     * @param bytes 图片数据的字节数
+     * @return data URI
+     */
+    public static String dataUri(int bytes) {
+        Random random = new Random(SEED);
+        byte[] data = new byte[bytes];
+        random.nextBytes(data);
+        StringBuilder sb = new StringBuilder(bytes * 4 / 3 + 32);
+        sb.append("data:image/png;base64,");
+        int i = 0;
+        for (; i + 2 < bytes; i += 3) {
+            int v = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff);
+            sb.append(BASE64_CHARS[v >>> 18]).append(BASE64_CHARS[(v >>> 12) & 63])
+                    .append(BASE64_CHARS[(v >>> 6) & 63]).append(BASE64_CHARS[v & 63]);
+        }
+        int rest = bytes - i;
+        if (rest == 1) {
+            int v = (data[i] & 0xff) << 16;
+            sb.append(BASE64_CHARS[v >>> 18]).append(BASE64_CHARS[(v >>> 12) & 63]).append("==");
+        } else if (rest == 2) {
+            int v = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8;
+            sb.append(BASE64_CHARS[v >>> 18]).append(BASE64_CHARS[(v >>> 12) & 63]).append(BASE64_CHARS[(v >>> 6) & 63]).append('=');
+        }
+        return sb.toString();
+    }
+}
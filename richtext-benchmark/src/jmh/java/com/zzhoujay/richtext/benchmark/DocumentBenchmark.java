@@ -0,0 +1,71 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+import com.zzhoujay.richtext.parser.HtmlConverter;
+import com.zzhoujay.richtext.parser.SpanCollector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 解析结果的后处理与序列化，文档由HtmlConverter.toDocument生成
+ * 预取和并行解析的结果在DocumentRenderer.generate中由RichHtmlParser.parse(RichDocument)按顺序交给SpanCollector，这里使用同一个SpanCollector
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class DocumentBenchmark {
+
+    @Param({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String size;
+
+    private RichDocument document;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        document = HtmlConverter.toDocument(Corpus.html(size));
+        serialized = write(document);
+    }
+
+    /**
+     * 收集span：图片编号并生成点击span，包含图片的链接不再生成链接span
+     */
+    @Benchmark
+    public SpanCollector postProcess() {
+        SpanCollector collector = new ObjectSpanCollector();
+        for (SpanRecord record : document.getSpans()) {
+            collector.setSpan(record.getType(), record.getStart(), record.getEnd(), record.getValue(), record.getPayload());
+        }
+        return collector;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return write(document);
+    }
+
+    @Benchmark
+    public RichDocument deserialize() throws IOException {
+        return RichDocument.readFrom(new DataInputStream(new ByteArrayInputStream(serialized)));
+    }
+
+    private static byte[] write(RichDocument document) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        document.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,87 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.parser.HtmlConverter;
+import com.zzhoujay.richtext.parser.ParallelConverter;
+import com.zzhoujay.richtext.parser.SpanCollector;
+
+import org.ccil.cowan.tagsoup.HTMLSchema;
+import org.ccil.cowan.tagsoup.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HtmlConverter和Html.fromHtml的对比
+ * android.text.Html无法在JVM上运行，这里只运行它内部的TagSoup解析作为基准
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class HtmlParseBenchmark {
+
+    private static final HTMLSchema SCHEMA = new HTMLSchema();
+    private static final int SEGMENT_SIZE = 8 * 1024;
+
+    @Param({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String size;
+
+    private String html;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        html = Corpus.html(size);
+        executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public RichDocument converter() {
+        return HtmlConverter.toDocument(html);
+    }
+
+    @Benchmark
+    public RichDocument parallel() {
+        return ParallelConverter.toDocument(html, SEGMENT_SIZE, executor);
+    }
+
+    /**
+     * RichHtmlParser.parse(String)：转换的同时把span交给SpanCollector
+     */
+    @Benchmark
+    public SpanCollector collect() {
+        SpanCollector collector = new ObjectSpanCollector();
+        HtmlConverter.convert(html, collector);
+        return collector;
+    }
+
+    /**
+     * Html.fromHtml中TagSoup的解析，不包含HtmlToSpannedConverter生成文本和span的部分，是Html.fromHtml耗时的下限
+     */
+    @Benchmark
+    public DefaultHandler tagSoup() throws IOException, SAXException {
+        Parser parser = new Parser();
+        parser.setProperty(Parser.schemaProperty, SCHEMA);
+        DefaultHandler handler = new DefaultHandler();
+        parser.setContentHandler(handler);
+        parser.parse(new InputSource(new StringReader(html)));
+        return handler;
+    }
+}
@@ -0,0 +1,40 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.ImageHolder;
+import com.zzhoujay.richtext.ext.ImageScanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * 解析前扫描图片标签（RichText.resetImages）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class ImageScanBenchmark {
+
+    @Param({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String size;
+
+    private String html;
+
+    @Setup
+    public void setup() {
+        html = Corpus.html(size);
+    }
+
+    @Benchmark
+    public HashMap<String, LinkedList<ImageHolder>> scan() {
+        HashMap<String, LinkedList<ImageHolder>> images = new HashMap<>();
+        ImageScanner.scan(html, images);
+        return images;
+    }
+}
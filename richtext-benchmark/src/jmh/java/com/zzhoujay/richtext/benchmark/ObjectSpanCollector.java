@@ -0,0 +1,30 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.parser.SpanCollector;
+
+/**
+ * RichHtmlParser使用的SpanCollector，Android的span不能在JVM上创建，每个span用一个空对象代替
+ * 收集、图片编号和点击事件的取舍与RichHtmlParser完全相同
+ */
+final class ObjectSpanCollector extends SpanCollector {
+
+    ObjectSpanCollector() {
+        // 设置了点击事件的RichText，图片和链接都生成点击span
+        super(true);
+    }
+
+    @Override
+    protected Object createSpan(int type, int value, String payload) {
+        return new Object();
+    }
+
+    @Override
+    protected Object createImageClickSpan(String source, int index) {
+        return new Object();
+    }
+
+    @Override
+    protected Object createUrlClickSpan(String url) {
+        return new Object();
+    }
+}
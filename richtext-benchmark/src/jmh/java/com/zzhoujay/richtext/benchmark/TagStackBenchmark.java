@@ -0,0 +1,120 @@
+package com.zzhoujay.richtext.benchmark;
+
+import com.zzhoujay.richtext.ext.TagStack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * HtmlTagHandler中ul/ol/li/code的栈处理，按文本中标签出现的顺序重放
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class TagStackBenchmark {
+
+    private static final int TAG_OTHER = 0;
+    private static final int TAG_UL = 1;
+    private static final int TAG_OL = 2;
+    private static final int TAG_LI = 3;
+    private static final int TAG_CODE = 4;
+    private static final int CLOSING = 8;
+
+    @Param({Corpus.SMALL, Corpus.MEDIUM, Corpus.HUGE})
+    public String size;
+
+    @Param({"1", "8", "32"})
+    public int depth;
+
+    private int[] events;
+    private int[] positions;
+
+    @Setup
+    public void setup() {
+        String html = Corpus.nestedLists(size, depth);
+        int[] events = new int[1024];
+        int[] positions = new int[1024];
+        int count = 0;
+        int i = 0;
+        while ((i = html.indexOf('<', i)) >= 0) {
+            int end = html.indexOf('>', i);
+            if (end < 0) {
+                break;
+            }
+            boolean closing = html.charAt(i + 1) == '/';
+            int nameStart = closing ? i + 2 : i + 1;
+            int nameEnd = nameStart;
+            while (nameEnd < end && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            String name = html.substring(nameStart, nameEnd);
+            int tag;
+            switch (name) {
+                case "ul":
+                    tag = TAG_UL;
+                    break;
+                case "ol":
+                    tag = TAG_OL;
+                    break;
+                case "li":
+                    tag = TAG_LI;
+                    break;
+                case "code":
+                    tag = TAG_CODE;
+                    break;
+                default:
+                    tag = TAG_OTHER;
+                    break;
+            }
+            if (count == events.length) {
+                events = Arrays.copyOf(events, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            events[count] = closing ? tag | CLOSING : tag;
+            positions[count] = i;
+            count++;
+            i = end + 1;
+        }
+        this.events = Arrays.copyOf(events, count);
+        this.positions = Arrays.copyOf(positions, count);
+    }
+
+    @Benchmark
+    public int replay() {
+        TagStack stack = new TagStack();
+        int checksum = 0;
+        for (int i = 0; i < events.length; i++) {
+            int event = events[i];
+            int tag = event & ~CLOSING;
+            if ((event & CLOSING) == 0) {
+                if (tag == TAG_UL) {
+                    stack.pushList(false);
+                } else if (tag == TAG_OL) {
+                    stack.pushList(true);
+                }
+                stack.pushTag(positions[i]);
+            } else {
+                int start = stack.popTag();
+                switch (tag) {
+                    case TAG_CODE:
+                        checksum += positions[i] - start;
+                        break;
+                    case TAG_UL:
+                    case TAG_OL:
+                        stack.popList();
+                        break;
+                    case TAG_LI:
+                        checksum += stack.nextListIndex() + stack.listLevel();
+                        break;
+                }
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,109 @@
+package com.zzhoujay.richtext;
+
+/**
+ * 摘要模式的配置，解析到限制的位置后停止，之后的图片不会加载
+ * 行数按文本中的换行计算，不考虑自动换行
+ */
+public class ExcerptConfig {
+
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+    public static final String DEFAULT_ELLIPSIS = "…";
+
+    private int maxChars;
+    private int maxLines;
+    private int maxBlocks;
+    private int maxImages;
+    private String ellipsis;
+
+    public ExcerptConfig() {
+        this.maxChars = NO_LIMIT;
+        this.maxLines = NO_LIMIT;
+        this.maxBlocks = NO_LIMIT;
+        this.maxImages = NO_LIMIT;
+        this.ellipsis = DEFAULT_ELLIPSIS;
+    }
+
+    /**
+     * 最多显示的字符数，图片算一个字符
+     *
+     * @param maxChars 默认不限制
+     * @return ExcerptConfig
+     */
+    public ExcerptConfig maxChars(int maxChars) {
+        this.maxChars = maxChars;
+        return this;
+    }
+
+    /**
+     * 最多显示的行数
+     *
+     * @param maxLines 默认不限制
+     * @return ExcerptConfig
+     */
+    public ExcerptConfig maxLines(int maxLines) {
+        this.maxLines = maxLines;
+        return this;
+    }
+
+    /**
+     * 最多显示的顶层块数，Html为顶层的标签，Markdown为空行分隔的段落
+     *
+     * @param maxBlocks 默认不限制
+     * @return ExcerptConfig
+     */
+    public ExcerptConfig maxBlocks(int maxBlocks) {
+        this.maxBlocks = maxBlocks;
+        return this;
+    }
+
+    /**
+     * 最多显示的图片数，在下一张图片的位置截断，为0时在第一张图片之前截断
+     *
+     * @param maxImages 默认不限制
+     * @return ExcerptConfig
+     */
+    public ExcerptConfig maxImages(int maxImages) {
+        this.maxImages = maxImages;
+        return this;
+    }
+
+    /**
+     * 截断后追加在末尾的文本
+     *
+     * @param ellipsis 默认{@link #DEFAULT_ELLIPSIS}，为null时不追加
+     * @return ExcerptConfig
+     */
+    public ExcerptConfig ellipsis(String ellipsis) {
+        this.ellipsis = ellipsis;
+        return this;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    public int getMaxImages() {
+        return maxImages;
+    }
+
+    public String getEllipsis() {
+        return ellipsis;
+    }
+
+    /**
+     * 用于缓存的key，配置不同的摘要分别缓存
+     *
+     * @return key
+     */
+    public String getKey() {
+        return maxChars + "_" + maxLines + "_" + maxBlocks + "_" + maxImages + "_" + ellipsis;
+    }
+}
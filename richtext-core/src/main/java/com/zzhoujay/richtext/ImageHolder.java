@@ -1,17 +1,19 @@
 package com.zzhoujay.richtext;
 
-import android.support.annotation.IntDef;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 
 /**
  * Created by zhou on 16-5-28.
  * ImageHolder
+ * 位于不依赖Android的richtext-core中，ScaleType和ImageType只作为常量定义使用
  */
 public class ImageHolder {
 
     /**
      * ScaleType
      */
-    @IntDef({ScaleType.DEFAULT, ScaleType.CENTER_CROP, ScaleType.FIT_CENTER})
+    @Retention(RetentionPolicy.SOURCE)
     public @interface ScaleType {
         int DEFAULT = 0;
         int CENTER_CROP = 1;
@@ -21,7 +23,7 @@ public class ImageHolder {
     /**
      * ImageType
      */
-    @IntDef({ImageType.JPG, ImageType.GIF})
+    @Retention(RetentionPolicy.SOURCE)
     public @interface ImageType {
         int JPG = 0;
         int GIF = 1;
@@ -0,0 +1,195 @@
+package com.zzhoujay.richtext.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 解析结果的磁盘缓存，每个文档一个文件
+ * 写入时先写临时文件再重命名，保证不会读到写了一半的文件；总大小超过上限时删除最久未使用的文件
+ */
+public final class DocumentDiskCache {
+
+    private static final String SUFFIX = ".rtd";
+    private static final String SUFFIX_TEMP = ".tmp";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final File directory;
+    private final long maxSize;
+    private long size = -1;
+
+    public DocumentDiskCache(File directory, long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @param key key
+     * @return RichDocument，不存在或文件损坏时返回null
+     */
+    public RichDocument get(String key) {
+        File file = getFile(key);
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            RichDocument document = RichDocument.readFrom(in);
+            if (document == null) {
+                remove(key);
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                file.setLastModified(System.currentTimeMillis());
+            }
+            return document;
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key      key
+     * @param document RichDocument
+     */
+    public void put(String key, RichDocument document) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        File temp = new File(directory, key + '.' + Thread.currentThread().getId() + SUFFIX_TEMP);
+        DataOutputStream out = null;
+        boolean success = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE));
+            document.writeTo(out);
+            out.flush();
+            out.close();
+            out = null;
+            synchronized (this) {
+                File file = getFile(key);
+                long oldLength = file.length();
+                if (temp.renameTo(file)) {
+                    success = true;
+                    if (size >= 0) {
+                        size += file.length() - oldLength;
+                    }
+                    trimToSize();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(out);
+            if (!success) {
+                //noinspection ResultOfMethodCallIgnored
+                temp.delete();
+            }
+        }
+    }
+
+    public synchronized void remove(String key) {
+        File file = getFile(key);
+        long length = file.length();
+        if (file.delete() && size >= 0) {
+            size -= length;
+        }
+    }
+
+    /**
+     * 清空磁盘缓存
+     */
+    public synchronized void clear() {
+        for (File file : listCacheFiles()) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+        size = 0;
+    }
+
+    /**
+     * 当前缓存占用的字节数
+     *
+     * @return size
+     */
+    public synchronized long size() {
+        if (size < 0) {
+            size = 0;
+            File[] files = listCacheFiles();
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    private void trimToSize() {
+        if (size() <= maxSize) {
+            return;
+        }
+        File[] files = listCacheFiles();
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long l = lhs.lastModified(), r = rhs.lastModified();
+                return l < r ? -1 : (l == r ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < files.length && size > maxSize; i++) {
+            long length = files[i].length();
+            if (files[i].delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private File[] listCacheFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                files[count++] = file;
+            }
+        }
+        File[] result = new File[count];
+        System.arraycopy(files, 0, result, 0, count);
+        return result;
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
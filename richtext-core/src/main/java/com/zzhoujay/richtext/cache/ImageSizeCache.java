@@ -0,0 +1,299 @@
+package com.zzhoujay.richtext.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 图片尺寸缓存：url -> (width, height, isGif)
+ * 内存中使用开放寻址的基本类型数组作为索引，持久化使用定长记录、只追加的内存映射文件
+ * 索引已满时按加入的先后淘汰最早的条目
+ */
+public final class ImageSizeCache {
+
+    private static final int MAGIC = 0x52544953; // RTIS
+    private static final int HEADER_SIZE = 8; // magic + count
+    private static final int RECORD_SIZE = 20; // hash(8) + width(4) + height(4) + flags(4)
+    private static final int MAX_RECORDS = 8192;
+    // 索引最多保存的条目数，文件写满时压缩后至少还能追加一半的记录
+    private static final int MAX_ENTRIES = MAX_RECORDS / 2;
+    private static final int FLAG_GIF = 1;
+    private static final long EMPTY = 0;
+    private static final String DATA_URI_PREFIX = "data:";
+
+    // 容量为2的幂，负载不超过0.5
+    private final long[] keys = new long[MAX_ENTRIES * 2];
+    private final int[] widths = new int[MAX_ENTRIES * 2];
+    private final int[] heights = new int[MAX_ENTRIES * 2];
+    private final byte[] flags = new byte[MAX_ENTRIES * 2];
+    private int count;
+    // 按加入顺序排列的key，环形队列，oldest为最早加入的位置
+    private final long[] order = new long[MAX_ENTRIES];
+    private int oldest;
+
+    private MappedByteBuffer buffer;
+    private int recordCount;
+
+    private ImageSizeCache() {
+    }
+
+    /**
+     * 从文件中加载并开启持久化，只需调用一次
+     *
+     * @param file 存储文件
+     */
+    public synchronized void init(File file) {
+        if (buffer != null) {
+            return;
+        }
+        RandomAccessFile raf = null;
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                return;
+            }
+            raf = new RandomAccessFile(file, "rw");
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + RECORD_SIZE * MAX_RECORDS);
+            int records = mapped.getInt(4);
+            if (mapped.getInt(0) != MAGIC || records < 0 || records > MAX_RECORDS) {
+                mapped.putInt(0, MAGIC);
+                records = 0;
+                mapped.putInt(4, 0);
+            }
+            // 加载文件之前已经记录的尺寸，加载完成后重新写入
+            long[] pendingKeys = new long[count];
+            int[] pendingValues = new int[count * 3];
+            int pending = count;
+            for (int i = 0; i < pending; i++) {
+                int slot = find(order[(oldest + i) & (MAX_ENTRIES - 1)]);
+                pendingKeys[i] = keys[slot];
+                pendingValues[i * 3] = widths[slot];
+                pendingValues[i * 3 + 1] = heights[slot];
+                pendingValues[i * 3 + 2] = flags[slot];
+            }
+            clearIndex();
+            buffer = mapped;
+            recordCount = records;
+            for (int i = 0; i < records; i++) {
+                int offset = HEADER_SIZE + i * RECORD_SIZE;
+                index(mapped.getLong(offset), mapped.getInt(offset + 8), mapped.getInt(offset + 12), (byte) mapped.getInt(offset + 16));
+            }
+            for (int i = 0; i < pending; i++) {
+                put(pendingKeys[i], pendingValues[i * 3], pendingValues[i * 3 + 1], (byte) pendingValues[i * 3 + 2]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (raf != null) {
+                try {
+                    // 关闭文件后映射仍然有效
+                    raf.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取图片尺寸
+     *
+     * @param src 图片地址
+     * @return ImageSize，不存在时返回null
+     */
+    public synchronized ImageSize get(String src) {
+        if (!isCacheable(src)) {
+            return null;
+        }
+        int slot = find(hash(src));
+        if (slot < 0) {
+            return null;
+        }
+        return new ImageSize(widths[slot], heights[slot], (flags[slot] & FLAG_GIF) != 0);
+    }
+
+    /**
+     * 记录图片尺寸
+     *
+     * @param src    图片地址
+     * @param width  宽
+     * @param height 高
+     * @param isGif  是否是gif
+     */
+    public synchronized void put(String src, int width, int height, boolean isGif) {
+        if (width <= 0 || height <= 0 || !isCacheable(src)) {
+            return;
+        }
+        put(hash(src), width, height, (byte) (isGif ? FLAG_GIF : 0));
+    }
+
+    private void put(long key, int width, int height, byte flag) {
+        int slot = find(key);
+        if (slot >= 0 && widths[slot] == width && heights[slot] == height && flags[slot] == flag) {
+            return;
+        }
+        index(key, width, height, flag);
+        append(key, width, height, flag);
+    }
+
+    private void append(long key, int width, int height, byte flag) {
+        if (buffer == null) {
+            return;
+        }
+        if (recordCount >= MAX_RECORDS) {
+            compact();
+        }
+        int offset = HEADER_SIZE + recordCount * RECORD_SIZE;
+        buffer.putLong(offset, key);
+        buffer.putInt(offset + 8, width);
+        buffer.putInt(offset + 12, height);
+        buffer.putInt(offset + 16, flag);
+        recordCount++;
+        // 先写记录再更新数量，中途被杀死时只会丢失最后一条
+        buffer.putInt(4, recordCount);
+    }
+
+    /**
+     * 文件写满后只保留索引中仍然存在的记录，按加入顺序写入，重新加载后淘汰的顺序不变
+     */
+    private void compact() {
+        int records = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = find(order[(oldest + i) & (MAX_ENTRIES - 1)]);
+            int offset = HEADER_SIZE + records * RECORD_SIZE;
+            buffer.putLong(offset, keys[slot]);
+            buffer.putInt(offset + 8, widths[slot]);
+            buffer.putInt(offset + 12, heights[slot]);
+            buffer.putInt(offset + 16, flags[slot]);
+            records++;
+        }
+        recordCount = records;
+        buffer.putInt(4, recordCount);
+    }
+
+    private void index(long key, int width, int height, byte flag) {
+        int slot = find(key);
+        if (slot < 0) {
+            if (count >= MAX_ENTRIES) {
+                // 索引已满时淘汰最早加入的一条
+                remove(find(order[oldest]));
+                oldest = (oldest + 1) & (MAX_ENTRIES - 1);
+            }
+            int mask = keys.length - 1;
+            slot = home(key);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            order[(oldest + count) & (MAX_ENTRIES - 1)] = key;
+            count++;
+        }
+        widths[slot] = width;
+        heights[slot] = height;
+        flags[slot] = flag;
+    }
+
+    /**
+     * 删除一个槽位，之后同一段连续槽位中的条目向前移动，保证查找时不会提前遇到空槽位
+     */
+    private void remove(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            long key = keys[i];
+            if (key == EMPTY) {
+                break;
+            }
+            // 空槽位在key的初始位置和当前位置之间时才能移动过去
+            if (((i - home(key)) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = key;
+                widths[hole] = widths[i];
+                heights[hole] = heights[i];
+                flags[hole] = flags[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        count--;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = home(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int home(long key) {
+        return (int) (key ^ (key >>> 32)) & (keys.length - 1);
+    }
+
+    private void clearIndex() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = EMPTY;
+        }
+        count = 0;
+        oldest = 0;
+    }
+
+    /**
+     * Base64编码的图片本身就包含了数据，不需要缓存尺寸
+     */
+    private static boolean isCacheable(String src) {
+        return src != null && !src.startsWith(DATA_URI_PREFIX);
+    }
+
+    /**
+     * 64位FNV-1a哈希，0保留给空槽位
+     */
+    private static long hash(String src) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, length = src.length(); i < length; i++) {
+            h ^= src.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == EMPTY ? 1 : h;
+    }
+
+    public static final class ImageSize {
+
+        private final int width;
+        private final int height;
+        private final boolean gif;
+
+        ImageSize(int width, int height, boolean gif) {
+            this.width = width;
+            this.height = height;
+            this.gif = gif;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public boolean isGif() {
+            return gif;
+        }
+    }
+
+    private static class ImageSizeCacheHolder {
+        private static final ImageSizeCache IMAGE_SIZE_CACHE = new ImageSizeCache();
+    }
+
+    public static ImageSizeCache getCache() {
+        return ImageSizeCacheHolder.IMAGE_SIZE_CACHE;
+    }
+}
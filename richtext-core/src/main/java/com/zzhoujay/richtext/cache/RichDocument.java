@@ -0,0 +1,106 @@
+package com.zzhoujay.richtext.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 解析结果的紧凑表示：纯文本加上span记录，用于磁盘缓存
+ */
+public final class RichDocument {
+
+    private static final int MAGIC = 0x52544443; // RTDC
+    private static final int VERSION = 1;
+
+    private final String text;
+    private final List<SpanRecord> spans;
+
+    public RichDocument(String text, List<SpanRecord> spans) {
+        this.text = text;
+        this.spans = Collections.unmodifiableList(spans);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<SpanRecord> getSpans() {
+        return spans;
+    }
+
+    /**
+     * 写入到输出流
+     *
+     * @param out 输出流
+     * @throws IOException IOException
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, text);
+        out.writeInt(spans.size());
+        for (SpanRecord span : spans) {
+            out.writeByte(span.getType());
+            out.writeInt(span.getStart());
+            out.writeInt(span.getEnd());
+            out.writeInt(span.getFlags());
+            out.writeInt(span.getValue());
+            String payload = span.getPayload();
+            out.writeBoolean(payload != null);
+            if (payload != null) {
+                writeString(out, payload);
+            }
+        }
+    }
+
+    /**
+     * 从输入流中读取
+     *
+     * @param in 输入流
+     * @return RichDocument，格式不匹配时返回null
+     * @throws IOException IOException
+     */
+    public static RichDocument readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        String text = readString(in);
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        List<SpanRecord> spans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int type = in.readByte();
+            int start = in.readInt();
+            int end = in.readInt();
+            int flags = in.readInt();
+            int value = in.readInt();
+            String payload = in.readBoolean() ? readString(in) : null;
+            if (start < 0 || end < start || end > text.length()) {
+                return null;
+            }
+            spans.add(new SpanRecord(type, start, end, flags, value, payload));
+        }
+        return new RichDocument(text, spans);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("bad string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
@@ -0,0 +1,203 @@
+package com.zzhoujay.richtext.cache;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * 线程安全的LRU缓存，按估算的字节数限制大小
+ * 值使用SoftReference持有，被GC回收的条目通过ReferenceQueue清理
+ */
+public abstract class SoftLruCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<K, V>> map;
+    private final ReferenceQueue<V> queue;
+
+    private long size;
+    private long maxSize;
+
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long evictionCount;
+    private long collectedCount;
+
+    public SoftLruCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<>(16, 0.75f, true);
+        this.queue = new ReferenceQueue<>();
+    }
+
+    /**
+     * 估算条目占用的字节数
+     *
+     * @param key   key
+     * @param value value
+     * @return 字节数
+     */
+    protected abstract long sizeOf(K key, V value);
+
+    public final synchronized V get(K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        expungeCollected();
+        Entry<K, V> entry = map.get(key);
+        if (entry != null) {
+            V value = entry.get();
+            if (value != null) {
+                hitCount++;
+                return value;
+            }
+            removeEntry(entry);
+        }
+        missCount++;
+        return null;
+    }
+
+    public final synchronized void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+        expungeCollected();
+        long entrySize = sizeOf(key, value);
+        if (entrySize > maxSize) {
+            // 单个条目超过上限时不缓存
+            remove(key);
+            return;
+        }
+        putCount++;
+        Entry<K, V> previous = map.put(key, new Entry<>(key, value, entrySize, queue));
+        size += entrySize;
+        if (previous != null) {
+            size -= previous.size;
+            previous.clear();
+        }
+        trimToSize(maxSize);
+    }
+
+    public final synchronized void remove(K key) {
+        Entry<K, V> entry = map.remove(key);
+        if (entry != null) {
+            size -= entry.size;
+            entry.clear();
+        }
+    }
+
+    public final synchronized void evictAll() {
+        for (Entry<K, V> entry : map.values()) {
+            entry.clear();
+        }
+        map.clear();
+        size = 0;
+        expungeCollected();
+    }
+
+    /**
+     * 修改缓存上限，超出的部分会立即按LRU移除
+     *
+     * @param maxSize 字节数
+     */
+    public final synchronized void resize(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    private void trimToSize(long maxSize) {
+        Iterator<Entry<K, V>> iterator = map.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Entry<K, V> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.size;
+            eldest.clear();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 清理已经被GC回收的条目
+     */
+    @SuppressWarnings("unchecked")
+    private void expungeCollected() {
+        Entry<K, V> entry;
+        while ((entry = (Entry<K, V>) queue.poll()) != null) {
+            if (map.get(entry.key) == entry) {
+                map.remove(entry.key);
+                size -= entry.size;
+                collectedCount++;
+            }
+        }
+    }
+
+    private void removeEntry(Entry<K, V> entry) {
+        map.remove(entry.key);
+        size -= entry.size;
+        collectedCount++;
+    }
+
+    public final synchronized long size() {
+        expungeCollected();
+        return size;
+    }
+
+    public final synchronized long maxSize() {
+        return maxSize;
+    }
+
+    public final synchronized int count() {
+        expungeCollected();
+        return map.size();
+    }
+
+    public final synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public final synchronized long missCount() {
+        return missCount;
+    }
+
+    public final synchronized long putCount() {
+        return putCount;
+    }
+
+    public final synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 被GC回收而移除的条目数
+     *
+     * @return count
+     */
+    public final synchronized long collectedCount() {
+        return collectedCount;
+    }
+
+    @Override
+    public final synchronized String toString() {
+        long accesses = hitCount + missCount;
+        int hitPercent = accesses != 0 ? (int) (100 * hitCount / accesses) : 0;
+        return String.format("SoftLruCache[size=%d,maxSize=%d,hits=%d,misses=%d,hitRate=%d%%,evictions=%d,collected=%d]",
+                size, maxSize, hitCount, missCount, hitPercent, evictionCount, collectedCount);
+    }
+
+    private static final class Entry<K, V> extends SoftReference<V> {
+
+        private final K key;
+        private final long size;
+
+        Entry(K key, V value, long size, ReferenceQueue<? super V> queue) {
+            super(value, queue);
+            this.key = key;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.zzhoujay.richtext.cache;
+
+/**
+ * 序列化后的span记录
+ */
+public final class SpanRecord {
+
+    public static final int TYPE_STYLE = 1;
+    public static final int TYPE_UNDERLINE = 2;
+    public static final int TYPE_STRIKETHROUGH = 3;
+    public static final int TYPE_SUBSCRIPT = 4;
+    public static final int TYPE_SUPERSCRIPT = 5;
+    public static final int TYPE_RELATIVE_SIZE = 6;
+    public static final int TYPE_ABSOLUTE_SIZE = 7;
+    public static final int TYPE_ABSOLUTE_SIZE_DIP = 8;
+    public static final int TYPE_FOREGROUND_COLOR = 9;
+    public static final int TYPE_BACKGROUND_COLOR = 10;
+    public static final int TYPE_TYPEFACE = 11;
+    public static final int TYPE_URL = 12;
+    public static final int TYPE_IMAGE = 13;
+    public static final int TYPE_QUOTE = 14;
+    public static final int TYPE_ALIGNMENT = 15;
+    public static final int TYPE_LEADING_MARGIN = 16;
+    // 代码块，value为背景色
+    public static final int TYPE_CODE = 17;
+    // 列表项，value由HtmlConverter#packBullet生成
+    public static final int TYPE_BULLET = 18;
+
+    private final int type;
+    private final int start;
+    private final int end;
+    private final int flags;
+    private final int value;
+    private final String payload;
+
+    /**
+     * @param type    span类型
+     * @param start   起始位置
+     * @param end     结束位置
+     * @param flags   span flags
+     * @param value   span的整型参数，例如颜色、字体大小
+     * @param payload span的字符串参数，例如链接、图片的src，可以为null
+     */
+    public SpanRecord(int type, int start, int end, int flags, int value, String payload) {
+        this.type = type;
+        this.start = start;
+        this.end = end;
+        this.flags = flags;
+        this.value = value;
+        this.payload = payload;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
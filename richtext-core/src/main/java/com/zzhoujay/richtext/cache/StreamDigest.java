@@ -0,0 +1,127 @@
+package com.zzhoujay.richtext.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 分段计算源文本的缓存key，结果与对整篇文本调用RichCacheManager.generateKey相同
+ * 文本按UTF-8编码后计算MD5，不支持MD5时使用与String.hashCode相同的哈希和长度
+ */
+public final class StreamDigest {
+
+    private final MessageDigest digest;
+    private final byte[] bytes = new byte[4 * 1024];
+    private int count;
+    // 上一段末尾的高代理项，等待下一段的低代理项
+    private char high;
+    private int hash;
+    private long length;
+
+    public StreamDigest() {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            md5 = null;
+        }
+        this.digest = md5;
+    }
+
+    /**
+     * 加入一段文本
+     *
+     * @param chars  字符
+     * @param offset 开始位置
+     * @param len    长度
+     */
+    public void update(char[] chars, int offset, int len) {
+        for (int i = offset, end = offset + len; i < end; i++) {
+            char c = chars[i];
+            hash = 31 * hash + c;
+            if (digest == null) {
+                continue;
+            }
+            if (high != 0) {
+                char h = high;
+                high = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(h, c);
+                    ensure(4);
+                    bytes[count++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[count++] = (byte) (0x80 | (codePoint & 0x3f));
+                    continue;
+                }
+                // 单独的代理项和String.getBytes一样编码为'?'
+                ensure(1);
+                bytes[count++] = '?';
+            }
+            encode(c);
+        }
+        length += len;
+    }
+
+    /**
+     * 计算结果
+     *
+     * @param config 影响解析结果的配置，可以为null
+     * @return key
+     */
+    public String finish(String config) {
+        if (digest == null) {
+            return String.valueOf(hash) + '_' + length + '_' + config;
+        }
+        if (high != 0) {
+            high = 0;
+            ensure(1);
+            bytes[count++] = '?';
+        }
+        flush();
+        if (config != null) {
+            char[] chars = config.toCharArray();
+            update(chars, 0, chars.length);
+            if (high != 0) {
+                high = 0;
+                ensure(1);
+                bytes[count++] = '?';
+            }
+            flush();
+        }
+        byte[] result = digest.digest();
+        StringBuilder sb = new StringBuilder(result.length * 2);
+        for (byte b : result) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private void encode(char c) {
+        ensure(3);
+        if (c < 0x80) {
+            bytes[count++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[count++] = (byte) (0xc0 | (c >> 6));
+            bytes[count++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            high = c;
+        } else if (Character.isLowSurrogate(c)) {
+            bytes[count++] = '?';
+        } else {
+            bytes[count++] = (byte) (0xe0 | (c >> 12));
+            bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[count++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    private void ensure(int n) {
+        if (count + n > bytes.length) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        digest.update(bytes, 0, count);
+        count = 0;
+    }
+}
@@ -16,9 +16,6 @@
 
 package com.zzhoujay.richtext.ext;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Base64解码,引用至:https://github.com/litesuits/android-common
  */
@@ -56,7 +53,7 @@ public class Base64 {
     public static final int URL_SAFE = 8;
 
     /**
-     * Flag to pass to {@link android.util.Base64OutputStream} to indicate that it
+     * Flag to pass to {@code android.util.Base64OutputStream} to indicate that it
      * should not close the output stream it is wrapping when it
      * itself is closed.
      */
@@ -96,15 +93,18 @@ public class Base64 {
     //  decoding
     //  --------------------------------------------------------
 
-    private static final Matcher rex_base_64 = Pattern.compile("^data:image/\\w+?;.*?base64,(.*)").matcher("");
+    static final int CHUNK_SIZE = 8 * 1024;
 
+    /**
+     * 解码data URI中的图片数据
+     *
+     * @param src 图片地址
+     * @return 图片数据，不是Base64编码的data URI时返回null
+     * @see DataUri
+     */
     public static byte[] decode(String src) {
-        rex_base_64.reset(src);
-        if (rex_base_64.find()) {
-            return decode(rex_base_64.group(1), 0);
-        } else {
-            return null;
-        }
+        DataUri dataUri = DataUri.parse(src);
+        return dataUri == null ? null : dataUri.decode();
     }
 
     /**
@@ -122,8 +122,55 @@ public class Base64 {
      *                                  incorrect padding
      */
     public static byte[] decode(String str, int flags) {
-        System.out.println(str);
-        return decode(str.getBytes(), flags);
+        return decode(str, 0, str.length(), flags);
+    }
+
+    /**
+     * Decode the Base64-encoded chars in the given region of input
+     * without copying them into an intermediate String or byte array.
+     *
+     * @param input the chars to decode
+     * @param start the position within input at which to start
+     * @param end   the position within input at which to stop
+     * @param flags controls certain features of the decoded output.
+     *              Pass {@code DEFAULT} to decode standard Base64.
+     * @throws IllegalArgumentException if the input contains
+     *                                  incorrect padding
+     */
+    public static byte[] decode(CharSequence input, int start, int end, int flags) {
+        int len = end - start;
+        Decoder decoder = new Decoder(flags, new byte[len * 3 / 4]);
+        byte[] chunk = new byte[Math.min(len, CHUNK_SIZE)];
+        int op = 0;
+        for (int p = start; p < end; ) {
+            int n = Math.min(chunk.length, end - p);
+            toBytes(input, p, n, chunk);
+            p += n;
+            // 每次解码写入output的起始位置，解码状态在多次调用之间保留
+            if (!decoder.process(chunk, 0, n, p >= end, op)) {
+                throw new IllegalArgumentException("bad base-64");
+            }
+            op += decoder.op;
+        }
+        if (len == 0 && !decoder.process(chunk, 0, 0, true, 0)) {
+            throw new IllegalArgumentException("bad base-64");
+        }
+        if (op == decoder.output.length) {
+            return decoder.output;
+        }
+        byte[] temp = new byte[op];
+        System.arraycopy(decoder.output, 0, temp, 0, op);
+        return temp;
+    }
+
+    /**
+     * 把char转换为byte，非ASCII字符映射为解码时跳过的值，与按字节解码时的行为一致
+     */
+    static void toBytes(CharSequence input, int start, int len, byte[] out) {
+        for (int i = 0; i < len; i++) {
+            char c = input.charAt(start + i);
+            out[i] = c < 0x80 ? (byte) c : (byte) 0x80;
+        }
     }
 
     /**
@@ -269,6 +316,15 @@ public class Base64 {
          * bad base-64 data has been detected in the input stream.
          */
         public boolean process(byte[] input, int offset, int len, boolean finish) {
+            return process(input, offset, len, finish, 0);
+        }
+
+        /**
+         * Decode another block of input data, writing the output starting
+         * at {@code outputOffset}.  On exit, this.op is the number of
+         * bytes written by this call.
+         */
+        public boolean process(byte[] input, int offset, int len, boolean finish, int outputOffset) {
             if (this.state == 6) return false;
 
             int p = offset;
@@ -281,7 +337,7 @@ public class Base64 {
             // the member variable is final.)
             int state = this.state;
             int value = this.value;
-            int op = 0;
+            int op = outputOffset;
             final byte[] output = this.output;
             final int[] alphabet = this.alphabet;
 
@@ -403,7 +459,7 @@ public class Base64 {
                 // more.
                 this.state = state;
                 this.value = value;
-                this.op = op;
+                this.op = op - outputOffset;
                 return true;
             }
 
@@ -441,7 +497,7 @@ public class Base64 {
             }
 
             this.state = state;
-            this.op = op;
+            this.op = op - outputOffset;
             return true;
         }
     }
@@ -0,0 +1,93 @@
+package com.zzhoujay.richtext.ext;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 边读边解码CharSequence中的一段Base64文本，只使用两个固定大小的缓冲区
+ */
+public class Base64InputStream extends InputStream {
+
+    private final CharSequence input;
+    private final int end;
+    private final Base64.Decoder decoder;
+    private final byte[] chunk;
+    private int position;
+    private int outputPosition;
+    private int outputLength;
+    private boolean finished;
+
+    /**
+     * @param input 文本
+     * @param start Base64数据开始的位置
+     * @param end   Base64数据结束的位置
+     */
+    public Base64InputStream(CharSequence input, int start, int end) {
+        this.input = input;
+        this.end = end;
+        this.position = start;
+        this.chunk = new byte[Base64.CHUNK_SIZE];
+        this.decoder = new Base64.Decoder(Base64.DEFAULT, new byte[Base64.CHUNK_SIZE * 3 / 4 + 3]);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return decoder.output[outputPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, outputLength - outputPosition);
+        System.arraycopy(decoder.output, outputPosition, b, off, n);
+        outputPosition += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, outputLength - outputPosition);
+            outputPosition += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return outputLength - outputPosition;
+    }
+
+    /**
+     * 当前缓冲区读完后解码下一段
+     *
+     * @return false:已经读到结尾
+     */
+    private boolean fill() throws IOException {
+        while (outputPosition >= outputLength) {
+            if (finished) {
+                return false;
+            }
+            int n = Math.min(chunk.length, end - position);
+            Base64.toBytes(input, position, n, chunk);
+            position += n;
+            finished = position >= end;
+            if (!decoder.process(chunk, 0, n, finished, 0)) {
+                throw new IOException("bad base-64");
+            }
+            outputPosition = 0;
+            outputLength = decoder.op;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,140 @@
+package com.zzhoujay.richtext.ext;
+
+import java.io.InputStream;
+
+/**
+ * Base64编码的data URI图片（data:image/png;base64,...）
+ * 只记录数据在原文本中的位置和内容哈希，解码时直接从原文本中读取，可以在任意线程中使用
+ */
+public final class DataUri {
+
+    private static final String PREFIX = "data:image/";
+    private static final String BASE64 = ";base64";
+
+    private final String source;
+    private final int start;
+    private final String id;
+
+    private DataUri(String source, int start, long hash) {
+        this.source = source;
+        this.start = start;
+        this.id = "data-uri:" + Long.toHexString(hash) + ':' + (source.length() - start);
+    }
+
+    /**
+     * 解析data URI，不使用正则
+     *
+     * @param src 图片地址
+     * @return DataUri，不是Base64编码的图片时返回null
+     */
+    public static DataUri parse(String src) {
+        int start = payloadStart(src);
+        if (start < 0) {
+            return null;
+        }
+        return new DataUri(src, start, hash(src, start, src.length()));
+    }
+
+    /**
+     * 判断是否是Base64编码的data URI，只检查头部
+     *
+     * @param src 图片地址
+     * @return true:是
+     */
+    public static boolean isDataUri(String src) {
+        return payloadStart(src) >= 0;
+    }
+
+    /**
+     * 找到Base64数据开始的位置
+     *
+     * @return 位置，格式不匹配时返回-1
+     */
+    private static int payloadStart(String src) {
+        if (src == null || !src.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return -1;
+        }
+        int length = src.length();
+        int i = PREFIX.length();
+        int subtypeStart = i;
+        while (i < length && isSubtypeChar(src.charAt(i))) {
+            i++;
+        }
+        if (i == subtypeStart || i >= length || src.charAt(i) != ';') {
+            return -1;
+        }
+        // 参数部分到第一个逗号为止，最后一个参数必须是base64
+        int comma = src.indexOf(',', i);
+        if (comma < 0 || comma - BASE64.length() < i) {
+            return -1;
+        }
+        if (!src.regionMatches(true, comma - BASE64.length(), BASE64, 0, BASE64.length())) {
+            return -1;
+        }
+        return comma + 1;
+    }
+
+    private static boolean isSubtypeChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '+' || c == '-' || c == '.';
+    }
+
+    /**
+     * 64位FNV-1a哈希
+     */
+    private static long hash(CharSequence s, int start, int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * 一次性解码全部数据
+     *
+     * @return 图片数据
+     * @throws IllegalArgumentException 数据不是合法的Base64
+     */
+    public byte[] decode() {
+        return Base64.decode(source, start, source.length(), Base64.DEFAULT);
+    }
+
+    /**
+     * 边读边解码的输入流
+     *
+     * @return InputStream
+     */
+    public InputStream openStream() {
+        return new Base64InputStream(source, start, source.length());
+    }
+
+    /**
+     * 根据内容生成的id，内容相同的图片id相同，可以作为缓存的key
+     *
+     * @return id
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof DataUri && id.equals(((DataUri) o).id));
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,195 @@
+package com.zzhoujay.richtext.ext;
+
+import com.zzhoujay.richtext.ImageHolder;
+import com.zzhoujay.richtext.parser.HtmlTokenizer;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * 单次线性扫描Html文本中的&lt;img&gt;标签，取出src、width和height
+ * 支持双引号、单引号和无引号的属性值，不使用正则
+ */
+public final class ImageScanner {
+
+    private static final String TAG_IMG = "img";
+    private static final String ATTR_SRC = "src";
+    private static final String ATTR_WIDTH = "width";
+    private static final String ATTR_HEIGHT = "height";
+    private static final String SUFFIX_GIF = ".gif";
+
+    private ImageScanner() {
+    }
+
+    /**
+     * 扫描文本中的所有图片
+     *
+     * @param text   Html文本
+     * @param images 用于存放结果的map，key为图片的src，相同src的图片按出现顺序排列
+     * @return 图片数量
+     */
+    public static int scan(String text, HashMap<String, LinkedList<ImageHolder>> images) {
+        return scan(text, images, 0);
+    }
+
+    /**
+     * 扫描一段Html中的图片，用于分段读取的文档，片段不能在标签的中间截断
+     *
+     * @param text     Html片段
+     * @param images   用于存放结果的map
+     * @param position 片段中第一张图片在文档中的位置
+     * @return 下一张图片的位置
+     */
+    public static int scan(String text, HashMap<String, LinkedList<ImageHolder>> images, int position) {
+        final int length = text.length();
+        int i = 0;
+        while ((i = text.indexOf('<', i)) >= 0) {
+            i++;
+            if (!isImageTag(text, i, length)) {
+                continue;
+            }
+            i += TAG_IMG.length();
+            int srcStart = -1, srcEnd = -1;
+            int width = -1, height = -1;
+            // 依次读取属性，直到标签结束
+            while (i < length) {
+                char c = text.charAt(i);
+                if (c == '>') {
+                    i++;
+                    break;
+                }
+                if (isWhitespace(c) || c == '/') {
+                    i++;
+                    continue;
+                }
+                int nameStart = i;
+                while (i < length && !isNameEnd(text.charAt(i))) {
+                    i++;
+                }
+                int nameEnd = i;
+                while (i < length && isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                if (i >= length || text.charAt(i) != '=') {
+                    // 没有值的属性
+                    continue;
+                }
+                i++;
+                while (i < length && isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                if (i >= length) {
+                    break;
+                }
+                int valueStart, valueEnd;
+                char quote = text.charAt(i);
+                if (quote == '"' || quote == '\'') {
+                    valueStart = ++i;
+                    while (i < length && text.charAt(i) != quote) {
+                        i++;
+                    }
+                    valueEnd = i;
+                    if (i < length) {
+                        i++;
+                    }
+                } else {
+                    valueStart = i;
+                    while (i < length && !isUnquotedValueEnd(text, i, length)) {
+                        i++;
+                    }
+                    valueEnd = i;
+                }
+                if (nameIs(text, nameStart, nameEnd, ATTR_SRC)) {
+                    srcStart = valueStart;
+                    srcEnd = valueEnd;
+                } else if (nameIs(text, nameStart, nameEnd, ATTR_WIDTH)) {
+                    width = parseInt(text, valueStart, valueEnd);
+                } else if (nameIs(text, nameStart, nameEnd, ATTR_HEIGHT)) {
+                    height = parseInt(text, valueStart, valueEnd);
+                }
+            }
+            if (srcStart < 0 || srcStart >= srcEnd) {
+                continue;
+            }
+            // Html解析时会把实体转换掉，使用同一个解码才能在ImageGetter中找到对应的ImageHolder
+            String src = HtmlTokenizer.decodeEntities(text, srcStart, srcEnd);
+            ImageHolder holder = new ImageHolder(src, position);
+            if (isGif(src)) {
+                holder.setImageType(ImageHolder.ImageType.GIF);
+            }
+            holder.setWidth(width);
+            holder.setHeight(height);
+            LinkedList<ImageHolder> holders = images.get(src);
+            if (holders == null) {
+                holders = new LinkedList<>();
+                images.put(src, holders);
+            }
+            holders.add(holder);
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * 判断路径是否是gif图片
+     *
+     * @param path 路径
+     * @return true:gif
+     */
+    public static boolean isGif(String path) {
+        int len = SUFFIX_GIF.length();
+        return path.length() > len && path.regionMatches(true, path.length() - len, SUFFIX_GIF, 0, len);
+    }
+
+    private static boolean isImageTag(String text, int start, int length) {
+        int end = start + TAG_IMG.length();
+        if (end > length || !text.regionMatches(true, start, TAG_IMG, 0, TAG_IMG.length())) {
+            return false;
+        }
+        if (end == length) {
+            return false;
+        }
+        char c = text.charAt(end);
+        return c == '>' || c == '/' || isWhitespace(c);
+    }
+
+    private static boolean nameIs(String text, int start, int end, String name) {
+        return end - start == name.length() && text.regionMatches(true, start, name, 0, name.length());
+    }
+
+    /**
+     * 直接从文本中解析整数，非纯数字时返回-1
+     */
+    private static int parseInt(String text, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            if (result > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static boolean isNameEnd(char c) {
+        return c == '=' || c == '>' || c == '/' || isWhitespace(c);
+    }
+
+    private static boolean isUnquotedValueEnd(String text, int i, int length) {
+        char c = text.charAt(i);
+        // 自闭合标签 <img src=a.jpg/> 中的'/'不属于属性值
+        return c == '>' || isWhitespace(c) || (c == '/' && i + 1 < length && text.charAt(i + 1) == '>');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+}
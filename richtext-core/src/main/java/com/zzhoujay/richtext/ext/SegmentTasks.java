@@ -0,0 +1,66 @@
+package com.zzhoujay.richtext.ext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 并行执行一组分段任务并按顺序取回结果
+ * 第一个任务在调用者线程中执行，之后按顺序执行还没有被线程池取走的任务，线程池已满或者调用者就在线程池中时也不会死锁
+ */
+public final class SegmentTasks {
+
+    private SegmentTasks() {
+    }
+
+    /**
+     * 执行全部任务
+     *
+     * @param tasks    任务
+     * @param executor 线程池
+     * @param <T>      结果类型
+     * @return 按任务顺序排列的结果
+     * @throws RuntimeException 任务抛出的异常
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks, Executor executor) {
+        int size = tasks.size();
+        List<FutureTask<T>> futures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            FutureTask<T> future = new FutureTask<>(tasks.get(i));
+            futures.add(future);
+            if (i > 0) {
+                executor.execute(future);
+            }
+        }
+        List<T> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            FutureTask<T> future = futures.get(i);
+            // 已经开始或完成的任务run不会重复执行
+            future.run();
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(futures, i);
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                cancel(futures, i);
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+        return results;
+    }
+
+    private static <T> void cancel(List<FutureTask<T>> futures, int from) {
+        for (int i = from, size = futures.size(); i < size; i++) {
+            futures.get(i).cancel(false);
+        }
+    }
+}
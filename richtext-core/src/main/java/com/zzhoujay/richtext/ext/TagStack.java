@@ -0,0 +1,102 @@
+package com.zzhoujay.richtext.ext;
+
+/**
+ * 自定义标签处理时的栈：记录每个标签开始的位置，以及嵌套列表的类型和序号
+ * 使用基本类型数组，不依赖Android，不做装箱
+ */
+public final class TagStack {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] starts;
+    private int tagDepth;
+
+    private boolean[] ordered;
+    private int[] indexes;
+    private int listDepth;
+
+    public TagStack() {
+        starts = new int[INITIAL_CAPACITY];
+        ordered = new boolean[INITIAL_CAPACITY];
+        indexes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 标签开始
+     *
+     * @param start 标签内容开始的位置
+     */
+    public void pushTag(int start) {
+        if (tagDepth == starts.length) {
+            starts = grow(starts);
+        }
+        starts[tagDepth++] = start;
+    }
+
+    /**
+     * 标签结束
+     *
+     * @return 对应的开始位置，没有未结束的标签时返回0
+     */
+    public int popTag() {
+        return tagDepth == 0 ? 0 : starts[--tagDepth];
+    }
+
+    /**
+     * 进入一个列表
+     *
+     * @param isOrdered true:ol，false:ul
+     */
+    public void pushList(boolean isOrdered) {
+        if (listDepth == ordered.length) {
+            boolean[] o = new boolean[listDepth * 2];
+            System.arraycopy(ordered, 0, o, 0, listDepth);
+            ordered = o;
+            indexes = grow(indexes);
+        }
+        ordered[listDepth] = isOrdered;
+        indexes[listDepth] = 0;
+        listDepth++;
+    }
+
+    /**
+     * 离开当前列表
+     */
+    public void popList() {
+        if (listDepth > 0) {
+            listDepth--;
+        }
+    }
+
+    /**
+     * 当前列表的嵌套层级，从0开始
+     *
+     * @return level
+     */
+    public int listLevel() {
+        return listDepth == 0 ? 0 : listDepth - 1;
+    }
+
+    /**
+     * 当前列表的下一个列表项
+     *
+     * @return 有序列表返回从1开始的序号，无序列表或者不在列表中返回-1
+     */
+    public int nextListIndex() {
+        if (listDepth == 0 || !ordered[listDepth - 1]) {
+            return -1;
+        }
+        return ++indexes[listDepth - 1];
+    }
+
+    public void clear() {
+        tagDepth = 0;
+        listDepth = 0;
+    }
+
+    private static int[] grow(int[] array) {
+        int[] result = new int[array.length * 2];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package com.zzhoujay.richtext.ext;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * 需要边读边解析的源文本，避免把整篇文档读入一个String
+ * 文件可以重复读取，Reader和InputStream只能读取一次
+ */
+public abstract class TextSource {
+
+    public static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * 打开源文本，由调用者关闭
+     *
+     * @return Reader
+     * @throws IOException 无法打开
+     */
+    public abstract Reader open() throws IOException;
+
+    /**
+     * 是否可以多次调用{@link #open()}
+     *
+     * @return true:可以
+     */
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    /**
+     * 读取全部内容，用于只能解析String的解析器
+     *
+     * @return 源文本
+     * @throws IOException 读取失败
+     */
+    public String read() throws IOException {
+        Reader reader = open();
+        try {
+            StringBuilder sb = new StringBuilder(BUFFER_SIZE);
+            char[] buffer = new char[BUFFER_SIZE];
+            int n;
+            while ((n = reader.read(buffer)) >= 0) {
+                sb.append(buffer, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    public static TextSource of(final Reader reader) {
+        return new TextSource() {
+            @Override
+            public Reader open() {
+                return reader;
+            }
+        };
+    }
+
+    public static TextSource of(final InputStream inputStream, final Charset charset) {
+        return new TextSource() {
+            @Override
+            public Reader open() {
+                return new InputStreamReader(inputStream, charset);
+            }
+        };
+    }
+
+    public static TextSource of(final File file, final Charset charset) {
+        return new TextSource() {
+            @Override
+            public Reader open() throws IOException {
+                return new InputStreamReader(new FileInputStream(file), charset);
+            }
+
+            @Override
+            public boolean isRepeatable() {
+                return true;
+            }
+        };
+    }
+
+    public static void closeQuietly(Reader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.zzhoujay.richtext.ext;
+
+/**
+ * 把解码宽度归整到屏幕宽度的1/4、1/2、3/4和全宽，
+ * 使不同布局宽度（padding、旋转、分屏）下的请求能够命中同一个解码缓存
+ */
+public final class WidthBucket {
+
+    private static final int BUCKET_COUNT = 4;
+
+    private WidthBucket() {
+    }
+
+    /**
+     * 获取不小于目标宽度的最小档位
+     *
+     * @param width       目标宽度
+     * @param screenWidth 屏幕宽度，使用屏幕的长边可以使旋转前后的档位保持一致
+     * @return 归整后的宽度
+     */
+    public static int bucket(int width, int screenWidth) {
+        if (width <= 0 || screenWidth <= 0 || width >= screenWidth) {
+            return width;
+        }
+        for (int i = 1; i < BUCKET_COUNT; i++) {
+            int bucket = screenWidth * i / BUCKET_COUNT;
+            if (width <= bucket) {
+                return bucket;
+            }
+        }
+        return screenWidth;
+    }
+}
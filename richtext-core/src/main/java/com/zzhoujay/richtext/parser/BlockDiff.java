@@ -0,0 +1,65 @@
+package com.zzhoujay.richtext.parser;
+
+/**
+ * 比较修改前后按块切分的源文本，找出开头和结尾没有变化的块
+ */
+public final class BlockDiff {
+
+    private BlockDiff() {
+    }
+
+    /**
+     * 从头开始内容相同的块数
+     *
+     * @param oldSource 修改前的源文本
+     * @param oldEnds   修改前每一块的结束位置
+     * @param newSource 修改后的源文本
+     * @param newEnds   修改后每一块的结束位置
+     * @return 块数
+     */
+    public static int commonPrefix(String oldSource, int[] oldEnds, String newSource, int[] newEnds) {
+        int max = Math.min(oldEnds.length, newEnds.length);
+        int count = 0;
+        while (count < max && sameBlock(oldSource, oldEnds, count, newSource, newEnds, count)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 从尾开始内容相同的块数，不包括开头已经相同的块
+     *
+     * @param oldSource 修改前的源文本
+     * @param oldEnds   修改前每一块的结束位置
+     * @param newSource 修改后的源文本
+     * @param newEnds   修改后每一块的结束位置
+     * @param prefix    {@link #commonPrefix(String, int[], String, int[])}的结果
+     * @return 块数
+     */
+    public static int commonSuffix(String oldSource, int[] oldEnds, String newSource, int[] newEnds, int prefix) {
+        int max = Math.min(oldEnds.length, newEnds.length) - prefix;
+        int count = 0;
+        while (count < max && sameBlock(oldSource, oldEnds, oldEnds.length - 1 - count, newSource, newEnds, newEnds.length - 1 - count)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 第index块的开始位置
+     *
+     * @param ends  每一块的结束位置
+     * @param index 块的序号
+     * @return 开始位置
+     */
+    public static int start(int[] ends, int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+    private static boolean sameBlock(String a, int[] aEnds, int i, String b, int[] bEnds, int j) {
+        int aStart = start(aEnds, i);
+        int bStart = start(bEnds, j);
+        int length = aEnds[i] - aStart;
+        return length == bEnds[j] - bStart && a.regionMatches(aStart, b, bStart, length);
+    }
+}
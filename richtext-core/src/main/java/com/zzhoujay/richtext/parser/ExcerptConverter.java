@@ -0,0 +1,172 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.ExcerptConfig;
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 只转换Html开头的一部分，达到限制之后出现可见的内容时停止解析
+ * 没有结束的span在截断的位置结束，截断位置之后的图片不会出现在结果中
+ */
+public final class ExcerptConverter implements HtmlTokenizer.StoppableHandler {
+
+    private static final String[] VOID_TAGS = {"br", "img", "hr", "input", "meta", "link", "area", "base", "col",
+            "param", "source", "wbr"};
+
+    private final ExcerptConfig config;
+    private final List<SpanRecord> spans;
+    private final HtmlConverter converter;
+
+    // 截断的位置，还没有达到限制时为-1
+    private int cut = -1;
+    // 截断位置之后还有可见的内容
+    private boolean truncated;
+    private int scanned;
+    private int lines;
+    private int blocks;
+    private int images;
+    private int depth;
+
+    private ExcerptConverter(ExcerptConfig config) {
+        this.config = config;
+        this.spans = new ArrayList<>();
+        this.converter = new HtmlConverter(new HtmlConverter.SpanSink() {
+            @Override
+            public void setSpan(int type, int start, int end, int value, String payload) {
+                spans.add(new SpanRecord(type, start, end, HtmlConverter.SPAN_EXCLUSIVE_EXCLUSIVE, value, payload));
+            }
+        });
+    }
+
+    /**
+     * 转换Html的摘要
+     *
+     * @param html   html
+     * @param config 摘要的配置
+     * @return RichDocument，截断时末尾带有省略号
+     */
+    public static RichDocument toDocument(String html, ExcerptConfig config) {
+        ExcerptConverter excerpt = new ExcerptConverter(config);
+        HtmlTokenizer.tokenize(html, excerpt);
+        return excerpt.build();
+    }
+
+    @Override
+    public boolean isStopped() {
+        return truncated;
+    }
+
+    @Override
+    public void onText(CharSequence text) {
+        if (truncated) {
+            return;
+        }
+        converter.onText(text);
+        check();
+    }
+
+    @Override
+    public void onStartTag(String tag, HtmlTokenizer.Attributes attributes, boolean selfClosing) {
+        if (truncated) {
+            return;
+        }
+        if (tag.equals("img")) {
+            if (cut < 0 && images >= config.getMaxImages()) {
+                cut = converter.length();
+            }
+            if (cut >= 0) {
+                // 图片是可见的内容，不再转换
+                truncated = true;
+                return;
+            }
+            images++;
+        }
+        converter.onStartTag(tag, attributes, selfClosing);
+        if (!selfClosing && !isVoid(tag)) {
+            depth++;
+        }
+        check();
+    }
+
+    @Override
+    public void onEndTag(String tag) {
+        if (truncated) {
+            return;
+        }
+        converter.onEndTag(tag);
+        if (isVoid(tag) || depth == 0) {
+            check();
+            return;
+        }
+        depth--;
+        check();
+        if (depth == 0 && ++blocks >= config.getMaxBlocks() && cut < 0) {
+            cut = converter.length();
+            scanned = cut;
+        }
+    }
+
+    /**
+     * 检查新增的文本，记录第一个达到的限制，之后出现非空白的字符时停止
+     */
+    private void check() {
+        int length = converter.length();
+        for (; scanned < length; scanned++) {
+            char c = converter.charAt(scanned);
+            if (cut < 0) {
+                if (scanned >= config.getMaxChars()) {
+                    cut = scanned;
+                    if (cut > 0 && Character.isHighSurrogate(converter.charAt(cut - 1))) {
+                        cut--;
+                    }
+                } else if (c == '\n' && ++lines >= config.getMaxLines()) {
+                    cut = scanned;
+                    continue;
+                }
+            }
+            if (cut >= 0 && !HtmlTokenizer.isWhitespace(c)) {
+                truncated = true;
+                return;
+            }
+        }
+    }
+
+    private RichDocument build() {
+        converter.finish();
+        if (!truncated) {
+            return new RichDocument(converter.substring(0), spans);
+        }
+        int end = cut;
+        while (end > 0 && HtmlTokenizer.isWhitespace(converter.charAt(end - 1))) {
+            end--;
+        }
+        StringBuilder text = new StringBuilder(end + 1);
+        text.append(converter.substring(0), 0, end);
+        List<SpanRecord> result = new ArrayList<>(spans.size());
+        for (SpanRecord span : spans) {
+            if (span.getStart() >= end) {
+                continue;
+            }
+            if (span.getEnd() > end) {
+                span = new SpanRecord(span.getType(), span.getStart(), end, span.getFlags(), span.getValue(), span.getPayload());
+            }
+            result.add(span);
+        }
+        if (config.getEllipsis() != null) {
+            text.append(config.getEllipsis());
+        }
+        return new RichDocument(text.toString(), result);
+    }
+
+    private static boolean isVoid(String tag) {
+        for (String t : VOID_TAGS) {
+            if (t.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
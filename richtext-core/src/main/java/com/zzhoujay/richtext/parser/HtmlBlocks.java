@@ -0,0 +1,155 @@
+package com.zzhoujay.richtext.parser;
+
+/**
+ * 在顶层的块级标签之间切分Html，切分的位置不在任何标签内部，每一段都是完整的元素
+ * 标签没有正确闭合时可能找不到切分的位置，这时整篇文档作为一段
+ */
+public final class HtmlBlocks {
+
+    private static final String[] VOID_TAGS = {"br", "img", "hr", "input", "meta", "link", "area", "base", "col",
+            "param", "source", "wbr"};
+
+    private HtmlBlocks() {
+    }
+
+    /**
+     * 切分Html
+     *
+     * @param html       html
+     * @param firstChunk 第一段的最小长度
+     * @param chunk      之后每一段的最小长度
+     * @return 每一段的结束位置，最后一个元素为html.length()
+     */
+    public static int[] split(String html, int firstChunk, int chunk) {
+        final int length = html.length();
+        int[] ends = new int[8];
+        int count = 0;
+        int depth = 0;
+        int last = 0;
+        int target = firstChunk;
+        int i = 0;
+        while (i < length) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0 || lt + 1 >= length) {
+                break;
+            }
+            char c = html.charAt(lt + 1);
+            if (c == '!' || c == '?') {
+                int end;
+                if (html.startsWith("!--", lt + 1)) {
+                    end = html.indexOf("-->", lt + 4);
+                    end = end < 0 ? length : end + 3;
+                } else {
+                    end = html.indexOf('>', lt + 2);
+                    end = end < 0 ? length : end + 1;
+                }
+                i = end;
+            } else if (c == '/' && lt + 2 < length && isLetter(html.charAt(lt + 2))) {
+                int end = html.indexOf('>', lt + 2);
+                i = end < 0 ? length : end + 1;
+                if (!isVoid(html, lt + 2) && depth > 0) {
+                    depth--;
+                }
+                if (depth == 0 && i - last >= target && i < length) {
+                    if (count == ends.length) {
+                        ends = grow(ends);
+                    }
+                    ends[count++] = i;
+                    last = i;
+                    target = chunk;
+                }
+            } else if (isLetter(c)) {
+                int end = tagEnd(html, lt + 1);
+                i = end < 0 ? length : end + 1;
+                boolean selfClosing = end > 0 && html.charAt(end - 1) == '/';
+                if (isTag(html, lt + 1, "script") || isTag(html, lt + 1, "style")) {
+                    // 跳过脚本和样式的内容，连同结束标签
+                    String close = isTag(html, lt + 1, "script") ? "</script" : "</style";
+                    int closeStart = indexOfIgnoreCase(html, close, i);
+                    int closeEnd = closeStart < 0 ? -1 : html.indexOf('>', closeStart);
+                    i = closeEnd < 0 ? length : closeEnd + 1;
+                } else if (!selfClosing && !isVoid(html, lt + 1)) {
+                    depth++;
+                }
+            } else {
+                i = lt + 1;
+            }
+        }
+        if (count == ends.length) {
+            ends = grow(ends);
+        }
+        ends[count++] = length;
+        int[] result = new int[count];
+        System.arraycopy(ends, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * 标签结束的'&gt;'的位置，跳过引号中的内容
+     *
+     * @param html html
+     * @param i    标签名开始的位置
+     * @return '&gt;'的位置，标签没有结束时返回-1
+     */
+    static int tagEnd(String html, int i) {
+        final int length = html.length();
+        char quote = 0;
+        for (; i < length; i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isVoid(String html, int nameStart) {
+        for (String tag : VOID_TAGS) {
+            if (isTag(html, nameStart, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * nameStart处的标签名是否是tag
+     */
+    private static boolean isTag(String html, int nameStart, String tag) {
+        int end = nameStart + tag.length();
+        if (!html.regionMatches(true, nameStart, tag, 0, tag.length())) {
+            return false;
+        }
+        if (end >= html.length()) {
+            return true;
+        }
+        char c = html.charAt(end);
+        return c == '>' || c == '/' || HtmlTokenizer.isWhitespace(c);
+    }
+
+    private static int indexOfIgnoreCase(String html, String target, int from) {
+        int max = html.length() - target.length();
+        for (int i = from; i <= max; i++) {
+            if (html.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int[] grow(int[] array) {
+        int[] result = new int[array.length * 2];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -0,0 +1,488 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+import com.zzhoujay.richtext.ext.TagStack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把HtmlTokenizer的结果转换为纯文本和span，支持android.text.Html中的标签，另外处理了原来HtmlTagHandler中的ul、ol、li和code
+ * 空白按Html的规则处理：空格、制表符和换行等连续的空白合并为一个空格，行首不保留空白；android.text.Html只合并空格和换行，结果不完全相同
+ * span在标签结束时按顺序交给SpanSink，文本只追加不插入
+ */
+public final class HtmlConverter implements HtmlTokenizer.Handler {
+
+    /**
+     * 接收转换出的span
+     */
+    public interface SpanSink {
+
+        /**
+         * @param type    {@link SpanRecord}中的类型
+         * @param start   起始位置
+         * @param end     结束位置
+         * @param value   整型参数
+         * @param payload 字符串参数，可以为null
+         */
+        void setSpan(int type, int start, int end, int value, String payload);
+    }
+
+    // Spanned.SPAN_EXCLUSIVE_EXCLUSIVE
+    public static final int SPAN_EXCLUSIVE_EXCLUSIVE = 33;
+    public static final int STYLE_BOLD = 1; // Typeface.BOLD
+    public static final int STYLE_ITALIC = 2; // Typeface.ITALIC
+    public static final int QUOTE_COLOR = 0xff0000ff;
+    public static final int CODE_COLOR = 0xfff0f0f0;
+    private static final float[] HEADER_SIZES = {1.5f, 1.4f, 1.3f, 1.2f, 1.1f, 1f};
+    private static final char OBJECT_REPLACEMENT = '\uFFFC';
+    private static final int NO_COLOR = 1; // 合法的颜色都是不透明的
+
+    private static final String[] COLOR_NAMES = {"aqua", "black", "blue", "fuchsia", "green", "grey", "gray", "lime",
+            "maroon", "navy", "olive", "purple", "red", "silver", "teal", "white", "yellow"};
+    private static final int[] COLOR_VALUES = {0xff00ffff, 0xff000000, 0xff0000ff, 0xffff00ff, 0xff008000, 0xff808080,
+            0xff808080, 0xff00ff00, 0xff800000, 0xff000080, 0xff808000, 0xff800080, 0xffff0000, 0xffc0c0c0, 0xff008080,
+            0xffffffff, 0xffffff00};
+
+    private final StringBuilder text;
+    private final SpanSink sink;
+    private final TagStack lists;
+
+    // 未结束的标签
+    private String[] tags;
+    private int[] starts;
+    private String[] payloads;
+    private int[] values;
+    private int depth;
+
+    private HtmlConverter(int capacity, SpanSink sink) {
+        this.text = new StringBuilder(capacity);
+        this.sink = sink;
+        this.lists = new TagStack();
+        this.tags = new String[16];
+        this.starts = new int[16];
+        this.payloads = new String[16];
+        this.values = new int[16];
+    }
+
+    /**
+     * 创建增量转换的实例，Html可以分多次传入，未结束的标签会保留到下一次
+     *
+     * @param sink 接收span
+     */
+    public HtmlConverter(SpanSink sink) {
+        this(256, sink);
+    }
+
+    /**
+     * 创建接在已有文本之后的增量转换实例，空白和段落的处理与接在完整的前文之后相同
+     * context计入{@link #length()}和span的位置
+     *
+     * @param sink    接收span
+     * @param context 前文的结尾，{@link #contextBefore(CharSequence, int)}的结果
+     */
+    public HtmlConverter(SpanSink sink, String context) {
+        this(256, sink);
+        text.append(context);
+    }
+
+    /**
+     * 转换时只依赖前文的最后两个字符，在顶层的块之间开始转换时用它代替完整的前文
+     *
+     * @param text 已经转换出的文本
+     * @param end  前文结束的位置
+     * @return 前文的结尾
+     */
+    public static String contextBefore(CharSequence text, int end) {
+        return text.subSequence(Math.max(0, end - 2), end).toString();
+    }
+
+    /**
+     * 转换一段Html，文本追加到之前的结果之后
+     *
+     * @param html html片段，不能在标签或实体的中间截断
+     */
+    public void feed(String html) {
+        text.ensureCapacity(text.length() + html.length());
+        HtmlTokenizer.tokenize(html, this);
+    }
+
+    /**
+     * 结束所有未结束的标签
+     */
+    public void finish() {
+        closeAll();
+    }
+
+    /**
+     * 目前为止转换出的文本长度
+     *
+     * @return length
+     */
+    public int length() {
+        return text.length();
+    }
+
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    /**
+     * 从start开始转换出的文本
+     *
+     * @param start 起始位置
+     * @return 文本
+     */
+    public String substring(int start) {
+        return text.substring(start);
+    }
+
+    /**
+     * 转换Html
+     *
+     * @param html html
+     * @param sink 接收span
+     * @return 纯文本
+     */
+    public static String convert(String html, SpanSink sink) {
+        // 去掉标签后的文本不会比原文长，按原文长度预分配避免扩容
+        HtmlConverter converter = new HtmlConverter(html.length(), sink);
+        HtmlTokenizer.tokenize(html, converter);
+        converter.closeAll();
+        return converter.text.toString();
+    }
+
+    /**
+     * 转换Html为RichDocument，不依赖Android
+     *
+     * @param html html
+     * @return RichDocument
+     */
+    public static RichDocument toDocument(String html) {
+        final List<SpanRecord> records = new ArrayList<>();
+        String text = convert(html, new SpanSink() {
+            @Override
+            public void setSpan(int type, int start, int end, int value, String payload) {
+                records.add(new SpanRecord(type, start, end, SPAN_EXCLUSIVE_EXCLUSIVE, value, payload));
+            }
+        });
+        return new RichDocument(text, records);
+    }
+
+    /**
+     * 列表项的层级和序号合并为一个int
+     *
+     * @param level 层级，从0开始
+     * @param index 序号，无序列表为-1
+     * @return value
+     */
+    public static int packBullet(int level, int index) {
+        return (level << 16) | ((index + 1) & 0xffff);
+    }
+
+    public static int bulletLevel(int value) {
+        return value >>> 16;
+    }
+
+    public static int bulletIndex(int value) {
+        return (value & 0xffff) - 1;
+    }
+
+    @Override
+    public void onText(CharSequence cs) {
+        for (int i = 0, length = cs.length(); i < length; i++) {
+            char c = cs.charAt(i);
+            if (HtmlTokenizer.isWhitespace(c)) {
+                // 连续的空白合并为一个空格，行首不保留空白
+                int len = text.length();
+                char pred = len == 0 ? '\n' : text.charAt(len - 1);
+                if (pred != ' ' && pred != '\n') {
+                    text.append(' ');
+                }
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    @Override
+    public void onStartTag(String tag, HtmlTokenizer.Attributes attributes, boolean selfClosing) {
+        String payload = null;
+        int value = 0;
+        switch (tag) {
+            case "br":
+                text.append('\n');
+                return;
+            case "img":
+                String src = attributes.get("src");
+                int start = text.length();
+                text.append(OBJECT_REPLACEMENT);
+                if (src != null) {
+                    sink.setSpan(SpanRecord.TYPE_IMAGE, start, start + 1, 0, src);
+                }
+                return;
+            case "hr":
+            case "input":
+            case "meta":
+            case "link":
+            case "area":
+            case "base":
+            case "col":
+            case "param":
+            case "source":
+            case "wbr":
+                return;
+            case "p":
+            case "div":
+            case "blockquote":
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                closeImplicit("p");
+                paragraph();
+                break;
+            case "ul":
+                closeImplicit("p");
+                text.append('\n');
+                lists.pushList(false);
+                break;
+            case "ol":
+                closeImplicit("p");
+                text.append('\n');
+                lists.pushList(true);
+                break;
+            case "li":
+                closeImplicit("li");
+                break;
+            case "a":
+                payload = attributes.get("href");
+                break;
+            case "font":
+                payload = attributes.get("face");
+                value = parseColor(attributes.get("color"));
+                break;
+        }
+        push(tag, payload, value);
+        if (selfClosing) {
+            onEndTag(tag);
+        }
+    }
+
+    @Override
+    public void onEndTag(String tag) {
+        for (int i = depth - 1; i >= 0; i--) {
+            if (tags[i].equals(tag)) {
+                closeTo(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 与TagSoup一致，新的li开始时结束同一个列表中没有结束的li，块级标签开始时结束同一个块中没有结束的p
+     * 查找不会越过包含它们的列表或块
+     *
+     * @param tag li或p
+     */
+    private void closeImplicit(String tag) {
+        for (int i = depth - 1; i >= 0; i--) {
+            String open = tags[i];
+            if (open.equals(tag)) {
+                closeTo(i);
+                return;
+            }
+            if (open.equals("ul") || open.equals("ol") || open.equals("li")
+                    || open.equals("div") || open.equals("blockquote")) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 结束第index个未结束的标签，中间没有结束的标签在这里一起结束
+     */
+    private void closeTo(int index) {
+        while (depth > index) {
+            depth--;
+            close(tags[depth], starts[depth], payloads[depth], values[depth]);
+            tags[depth] = null;
+            payloads[depth] = null;
+        }
+    }
+
+    private void closeAll() {
+        while (depth > 0) {
+            depth--;
+            close(tags[depth], starts[depth], payloads[depth], values[depth]);
+        }
+    }
+
+    private void close(String tag, int start, String payload, int value) {
+        int end = text.length();
+        switch (tag) {
+            case "p":
+            case "div":
+                paragraph();
+                break;
+            case "blockquote":
+                paragraph();
+                span(SpanRecord.TYPE_QUOTE, start, QUOTE_COLOR, null);
+                break;
+            case "h1":
+            case "h2":
+            case "h3":
+            case "h4":
+            case "h5":
+            case "h6":
+                paragraph();
+                span(SpanRecord.TYPE_RELATIVE_SIZE, start, Float.floatToIntBits(HEADER_SIZES[tag.charAt(1) - '1']), null);
+                span(SpanRecord.TYPE_STYLE, start, STYLE_BOLD, null);
+                break;
+            case "b":
+            case "strong":
+                span(SpanRecord.TYPE_STYLE, start, STYLE_BOLD, null);
+                break;
+            case "i":
+            case "em":
+            case "cite":
+            case "dfn":
+                span(SpanRecord.TYPE_STYLE, start, STYLE_ITALIC, null);
+                break;
+            case "u":
+                span(SpanRecord.TYPE_UNDERLINE, start, 0, null);
+                break;
+            case "s":
+            case "strike":
+            case "del":
+                span(SpanRecord.TYPE_STRIKETHROUGH, start, 0, null);
+                break;
+            case "sup":
+                span(SpanRecord.TYPE_SUPERSCRIPT, start, 0, null);
+                break;
+            case "sub":
+                span(SpanRecord.TYPE_SUBSCRIPT, start, 0, null);
+                break;
+            case "big":
+                span(SpanRecord.TYPE_RELATIVE_SIZE, start, Float.floatToIntBits(1.25f), null);
+                break;
+            case "small":
+                span(SpanRecord.TYPE_RELATIVE_SIZE, start, Float.floatToIntBits(0.8f), null);
+                break;
+            case "tt":
+                span(SpanRecord.TYPE_TYPEFACE, start, 0, "monospace");
+                break;
+            case "a":
+                if (payload != null) {
+                    span(SpanRecord.TYPE_URL, start, 0, payload);
+                }
+                break;
+            case "font":
+                if (value != NO_COLOR) {
+                    span(SpanRecord.TYPE_FOREGROUND_COLOR, start, value, null);
+                }
+                if (payload != null) {
+                    span(SpanRecord.TYPE_TYPEFACE, start, 0, payload);
+                }
+                break;
+            case "code":
+                if (start != end) {
+                    sink.setSpan(SpanRecord.TYPE_CODE, start, end, CODE_COLOR, null);
+                }
+                break;
+            case "ul":
+            case "ol":
+                text.append('\n');
+                lists.popList();
+                break;
+            case "li":
+                int index = lists.nextListIndex();
+                text.append('\n');
+                sink.setSpan(SpanRecord.TYPE_BULLET, start, text.length(), packBullet(lists.listLevel(), index), null);
+                break;
+        }
+    }
+
+    private void span(int type, int start, int value, String payload) {
+        int end = text.length();
+        if (start != end) {
+            sink.setSpan(type, start, end, value, payload);
+        }
+    }
+
+    /**
+     * 段落前后保证有一个空行
+     */
+    private void paragraph() {
+        int len = text.length();
+        if (len >= 1 && text.charAt(len - 1) == '\n') {
+            if (len >= 2 && text.charAt(len - 2) == '\n') {
+                return;
+            }
+            text.append('\n');
+            return;
+        }
+        if (len != 0) {
+            text.append("\n\n");
+        }
+    }
+
+    private void push(String tag, String payload, int value) {
+        if (depth == tags.length) {
+            int capacity = depth * 2;
+            String[] t = new String[capacity];
+            int[] s = new int[capacity];
+            String[] p = new String[capacity];
+            int[] v = new int[capacity];
+            System.arraycopy(tags, 0, t, 0, depth);
+            System.arraycopy(starts, 0, s, 0, depth);
+            System.arraycopy(payloads, 0, p, 0, depth);
+            System.arraycopy(values, 0, v, 0, depth);
+            tags = t;
+            starts = s;
+            payloads = p;
+            values = v;
+        }
+        tags[depth] = tag;
+        starts[depth] = text.length();
+        payloads[depth] = payload;
+        values[depth] = value;
+        depth++;
+    }
+
+    /**
+     * 解析颜色，支持#RRGGBB、#RGB和Html中的16个颜色名
+     *
+     * @return 颜色，无法解析时返回NO_COLOR
+     */
+    static int parseColor(String color) {
+        if (color == null) {
+            return NO_COLOR;
+        }
+        color = color.trim();
+        if (color.startsWith("#")) {
+            int length = color.length();
+            if (length != 7 && length != 4) {
+                return NO_COLOR;
+            }
+            int rgb = 0;
+            for (int i = 1; i < length; i++) {
+                int d = Character.digit(color.charAt(i), 16);
+                if (d < 0) {
+                    return NO_COLOR;
+                }
+                rgb = length == 7 ? (rgb << 4) | d : (rgb << 8) | (d << 4) | d;
+            }
+            return 0xff000000 | rgb;
+        }
+        for (int i = 0; i < COLOR_NAMES.length; i++) {
+            if (COLOR_NAMES[i].equalsIgnoreCase(color)) {
+                return COLOR_VALUES[i];
+            }
+        }
+        return NO_COLOR;
+    }
+}
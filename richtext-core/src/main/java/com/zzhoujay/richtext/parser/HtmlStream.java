@@ -0,0 +1,57 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.cache.StreamDigest;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 分段读取Html，每次只交出完整的标签和实体，没有读完的部分留到下一次
+ * 内存中最多保留一个缓冲区和一个没有读完的标签
+ */
+public final class HtmlStream {
+
+    public interface ChunkHandler {
+
+        /**
+         * @param html 可以直接交给{@link HtmlConverter#feed(String)}的片段
+         */
+        void onChunk(String html);
+    }
+
+    private HtmlStream() {
+    }
+
+    /**
+     * 读取全部内容
+     *
+     * @param reader     源文本
+     * @param bufferSize 每次读取的字符数
+     * @param digest     同时计算缓存的key，可以为null
+     * @param handler    接收片段
+     * @throws IOException 读取失败
+     */
+    public static void read(Reader reader, int bufferSize, StreamDigest digest, ChunkHandler handler) throws IOException {
+        char[] buffer = new char[bufferSize];
+        StringBuilder pending = new StringBuilder(bufferSize);
+        int n;
+        while ((n = reader.read(buffer)) >= 0) {
+            if (n == 0) {
+                continue;
+            }
+            if (digest != null) {
+                digest.update(buffer, 0, n);
+            }
+            pending.append(buffer, 0, n);
+            String html = pending.toString();
+            int length = HtmlTokenizer.completeLength(html);
+            if (length > 0) {
+                pending.delete(0, length);
+                handler.onChunk(length == html.length() ? html : html.substring(0, length));
+            }
+        }
+        if (pending.length() > 0) {
+            handler.onChunk(pending.toString());
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package com.zzhoujay.richtext.parser;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * 单次扫描的Html分词器，只识别开始标签、结束标签和文本，实体在扫描时直接解码
+ * 注释、doctype、处理指令以及script/style的内容会被跳过；不会构建DOM，也不分配SAX事件
+ */
+public final class HtmlTokenizer {
+
+    /**
+     * 分词结果的回调，传入的CharSequence和Attributes只在回调期间有效
+     */
+    public interface Handler {
+
+        /**
+         * 文本，实体已经解码，空白没有合并
+         *
+         * @param text 文本
+         */
+        void onText(CharSequence text);
+
+        /**
+         * 开始标签
+         *
+         * @param tag         小写的标签名
+         * @param attributes  属性
+         * @param selfClosing 是否是自闭合标签 &lt;br/&gt;
+         */
+        void onStartTag(String tag, Attributes attributes, boolean selfClosing);
+
+        /**
+         * 结束标签
+         *
+         * @param tag 小写的标签名
+         */
+        void onEndTag(String tag);
+    }
+
+    /**
+     * 可以提前结束的Handler，每次回调之后检查一次
+     */
+    public interface StoppableHandler extends Handler {
+
+        /**
+         * @return true:不再解析剩下的Html
+         */
+        boolean isStopped();
+    }
+
+    /**
+     * 标签的属性，复用同一个对象
+     */
+    public static final class Attributes {
+
+        private String[] names = new String[8];
+        private String[] values = new String[8];
+        private int count;
+
+        /**
+         * 获取属性值
+         *
+         * @param name 小写的属性名
+         * @return 属性值，不存在时返回null
+         */
+        public String get(String name) {
+            for (int i = 0; i < count; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public String getName(int index) {
+            return names[index];
+        }
+
+        public String getValue(int index) {
+            return values[index];
+        }
+
+        private void add(String name, String value) {
+            if (count == names.length) {
+                String[] n = new String[count * 2];
+                String[] v = new String[count * 2];
+                System.arraycopy(names, 0, n, 0, count);
+                System.arraycopy(values, 0, v, 0, count);
+                names = n;
+                values = v;
+            }
+            names[count] = name;
+            values[count] = value;
+            count++;
+        }
+
+        private void clear() {
+            for (int i = 0; i < count; i++) {
+                names[i] = null;
+                values[i] = null;
+            }
+            count = 0;
+        }
+    }
+
+    private static final HashMap<String, Character> ENTITIES = new HashMap<>(512);
+
+    static {
+        // HTML 4.01中的全部实体，另外加上XHTML的apos
+        // ISO 8859-1字符，依次对应U+00A0到U+00FF
+        String[] latin1 = {
+                "nbsp", "iexcl", "cent", "pound", "curren", "yen", "brvbar", "sect", "uml", "copy",
+                "ordf", "laquo", "not", "shy", "reg", "macr", "deg", "plusmn", "sup2", "sup3",
+                "acute", "micro", "para", "middot", "cedil", "sup1", "ordm", "raquo", "frac14", "frac12",
+                "frac34", "iquest", "Agrave", "Aacute", "Acirc", "Atilde", "Auml", "Aring", "AElig", "Ccedil",
+                "Egrave", "Eacute", "Ecirc", "Euml", "Igrave", "Iacute", "Icirc", "Iuml", "ETH", "Ntilde",
+                "Ograve", "Oacute", "Ocirc", "Otilde", "Ouml", "times", "Oslash", "Ugrave", "Uacute", "Ucirc",
+                "Uuml", "Yacute", "THORN", "szlig", "agrave", "aacute", "acirc", "atilde", "auml", "aring",
+                "aelig", "ccedil", "egrave", "eacute", "ecirc", "euml", "igrave", "iacute", "icirc", "iuml",
+                "eth", "ntilde", "ograve", "oacute", "ocirc", "otilde", "ouml", "divide", "oslash", "ugrave",
+                "uacute", "ucirc", "uuml", "yacute", "thorn", "yuml"};
+        for (int i = 0; i < latin1.length; i++) {
+            ENTITIES.put(latin1[i], (char) (0xA0 + i));
+        }
+        // 特殊字符、希腊字母、数学符号和其它符号
+        String[] names = {
+                "quot", "amp", "apos", "lt", "gt", "OElig", "oelig", "Scaron", "scaron", "Yuml",
+                "fnof", "circ", "tilde", "Alpha", "Beta", "Gamma", "Delta", "Epsilon", "Zeta", "Eta",
+                "Theta", "Iota", "Kappa", "Lambda", "Mu", "Nu", "Xi", "Omicron", "Pi", "Rho",
+                "Sigma", "Tau", "Upsilon", "Phi", "Chi", "Psi", "Omega", "alpha", "beta", "gamma",
+                "delta", "epsilon", "zeta", "eta", "theta", "iota", "kappa", "lambda", "mu", "nu",
+                "xi", "omicron", "pi", "rho", "sigmaf", "sigma", "tau", "upsilon", "phi", "chi",
+                "psi", "omega", "thetasym", "upsih", "piv", "ensp", "emsp", "thinsp", "zwnj", "zwj",
+                "lrm", "rlm", "ndash", "mdash", "lsquo", "rsquo", "sbquo", "ldquo", "rdquo", "bdquo",
+                "dagger", "Dagger", "bull", "hellip", "permil", "prime", "Prime", "lsaquo", "rsaquo", "oline",
+                "frasl", "euro", "image", "weierp", "real", "trade", "alefsym", "larr", "uarr", "rarr",
+                "darr", "harr", "crarr", "lArr", "uArr", "rArr", "dArr", "hArr", "forall", "part",
+                "exist", "empty", "nabla", "isin", "notin", "ni", "prod", "sum", "minus", "lowast",
+                "radic", "prop", "infin", "ang", "and", "or", "cap", "cup", "int", "there4",
+                "sim", "cong", "asymp", "ne", "equiv", "le", "ge", "sub", "sup", "nsub",
+                "sube", "supe", "oplus", "otimes", "perp", "sdot", "lceil", "rceil", "lfloor", "rfloor",
+                "lang", "rang", "loz", "spades", "clubs", "hearts", "diams"};
+        char[] chars = {
+                '"', '&', '\'', '<', '>', '\u0152', '\u0153', '\u0160', '\u0161', '\u0178',
+                '\u0192', '\u02C6', '\u02DC', '\u0391', '\u0392', '\u0393', '\u0394', '\u0395', '\u0396', '\u0397',
+                '\u0398', '\u0399', '\u039A', '\u039B', '\u039C', '\u039D', '\u039E', '\u039F', '\u03A0', '\u03A1',
+                '\u03A3', '\u03A4', '\u03A5', '\u03A6', '\u03A7', '\u03A8', '\u03A9', '\u03B1', '\u03B2', '\u03B3',
+                '\u03B4', '\u03B5', '\u03B6', '\u03B7', '\u03B8', '\u03B9', '\u03BA', '\u03BB', '\u03BC', '\u03BD',
+                '\u03BE', '\u03BF', '\u03C0', '\u03C1', '\u03C2', '\u03C3', '\u03C4', '\u03C5', '\u03C6', '\u03C7',
+                '\u03C8', '\u03C9', '\u03D1', '\u03D2', '\u03D6', '\u2002', '\u2003', '\u2009', '\u200C', '\u200D',
+                '\u200E', '\u200F', '\u2013', '\u2014', '\u2018', '\u2019', '\u201A', '\u201C', '\u201D', '\u201E',
+                '\u2020', '\u2021', '\u2022', '\u2026', '\u2030', '\u2032', '\u2033', '\u2039', '\u203A', '\u203E',
+                '\u2044', '\u20AC', '\u2111', '\u2118', '\u211C', '\u2122', '\u2135', '\u2190', '\u2191', '\u2192',
+                '\u2193', '\u2194', '\u21B5', '\u21D0', '\u21D1', '\u21D2', '\u21D3', '\u21D4', '\u2200', '\u2202',
+                '\u2203', '\u2205', '\u2207', '\u2208', '\u2209', '\u220B', '\u220F', '\u2211', '\u2212', '\u2217',
+                '\u221A', '\u221D', '\u221E', '\u2220', '\u2227', '\u2228', '\u2229', '\u222A', '\u222B', '\u2234',
+                '\u223C', '\u2245', '\u2248', '\u2260', '\u2261', '\u2264', '\u2265', '\u2282', '\u2283', '\u2284',
+                '\u2286', '\u2287', '\u2295', '\u2297', '\u22A5', '\u22C5', '\u2308', '\u2309', '\u230A', '\u230B',
+                '\u2329', '\u232A', '\u25CA', '\u2660', '\u2663', '\u2665', '\u2666'};
+        for (int i = 0; i < names.length; i++) {
+            ENTITIES.put(names[i], chars[i]);
+        }
+    }
+
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private HtmlTokenizer() {
+    }
+
+    /**
+     * 扫描Html文本
+     *
+     * @param html    html
+     * @param handler 回调
+     */
+    public static void tokenize(String html, Handler handler) {
+        final int length = html.length();
+        final StringBuilder buffer = new StringBuilder(256);
+        final Attributes attributes = new Attributes();
+        final StoppableHandler stoppable = handler instanceof StoppableHandler ? (StoppableHandler) handler : null;
+        int textStart = 0;
+        int i = 0;
+        while (i < length) {
+            if (stoppable != null && stoppable.isStopped()) {
+                return;
+            }
+            int lt = html.indexOf('<', i);
+            if (lt < 0 || lt + 1 >= length) {
+                break;
+            }
+            char c = html.charAt(lt + 1);
+            if (isLetter(c)) {
+                emitText(html, textStart, lt, buffer, handler);
+                int nameEnd = lt + 1;
+                while (nameEnd < length && !isTagNameEnd(html.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                String tag = tagName(html, lt + 1, nameEnd);
+                attributes.clear();
+                int end = parseAttributes(html, nameEnd, attributes, buffer);
+                boolean selfClosing = end - 1 > nameEnd && html.charAt(end - 1) == '/';
+                handler.onStartTag(tag, attributes, selfClosing);
+                i = end < length ? end + 1 : length;
+                if (tag.equals("script") || tag.equals("style")) {
+                    // 跳过脚本和样式的内容
+                    int close = indexOfIgnoreCase(html, "</" + tag, i);
+                    i = close < 0 ? length : close;
+                }
+                textStart = i;
+            } else if (c == '/' && lt + 2 < length && isLetter(html.charAt(lt + 2))) {
+                emitText(html, textStart, lt, buffer, handler);
+                int nameEnd = lt + 2;
+                while (nameEnd < length && !isTagNameEnd(html.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                String tag = tagName(html, lt + 2, nameEnd);
+                int end = html.indexOf('>', nameEnd);
+                handler.onEndTag(tag);
+                i = end < 0 ? length : end + 1;
+                textStart = i;
+            } else if (c == '!' || c == '?') {
+                emitText(html, textStart, lt, buffer, handler);
+                int end;
+                if (html.startsWith("!--", lt + 1)) {
+                    end = html.indexOf("-->", lt + 4);
+                    end = end < 0 ? length : end + 3;
+                } else {
+                    end = html.indexOf('>', lt + 2);
+                    end = end < 0 ? length : end + 1;
+                }
+                i = end;
+                textStart = i;
+            } else {
+                // 不是标签的'<'按文本处理
+                i = lt + 1;
+            }
+        }
+        if (stoppable != null && stoppable.isStopped()) {
+            return;
+        }
+        emitText(html, textStart, length, buffer, handler);
+    }
+
+    /**
+     * 追加的Html可以立即解析的长度，末尾没有结束的标签、注释、脚本和实体留到下一次
+     *
+     * @param html 还没有解析的Html
+     * @return 可以解析的前缀长度
+     */
+    public static int completeLength(String html) {
+        int length = html.length();
+        int i = 0;
+        while (i < length) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0) {
+                break;
+            }
+            if (lt + 1 >= length) {
+                return lt;
+            }
+            char c = html.charAt(lt + 1);
+            if (html.startsWith("!--", lt + 1)) {
+                int end = html.indexOf("-->", lt + 4);
+                if (end < 0) {
+                    return lt;
+                }
+                i = end + 3;
+            } else if (c == '/' && lt + 2 >= length) {
+                return lt;
+            } else if (isLetter(c) || c == '!' || c == '?' || (c == '/' && isLetter(html.charAt(lt + 2)))) {
+                // 引号中的'>'不会结束标签，与解析属性时一致
+                int end = HtmlBlocks.tagEnd(html, lt + 1);
+                if (end < 0) {
+                    return lt;
+                }
+                i = end + 1;
+                String raw = isLetter(c) ? rawTextTag(html, lt + 1) : null;
+                if (raw != null) {
+                    // 脚本和样式的内容会被一直跳过到结束标签，结束标签也要完整
+                    int close = indexOfIgnoreCase(html, "</" + raw, i);
+                    int closeEnd = close < 0 ? -1 : html.indexOf('>', close);
+                    if (closeEnd < 0) {
+                        return lt;
+                    }
+                    i = closeEnd + 1;
+                }
+            } else {
+                i = lt + 1;
+            }
+        }
+        int amp = html.lastIndexOf('&');
+        if (amp >= 0 && length - amp <= MAX_ENTITY_LENGTH + 2) {
+            int j = amp + 1;
+            while (j < length && (isLetterOrDigit(html.charAt(j)) || html.charAt(j) == '#')) {
+                j++;
+            }
+            if (j == length) {
+                // 实体可能还没有传完
+                return amp;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 内容不按Html解析的标签
+     *
+     * @return script或style，其它标签返回null
+     */
+    private static String rawTextTag(String html, int nameStart) {
+        int nameEnd = nameStart;
+        while (nameEnd < html.length() && !isTagNameEnd(html.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String tag = tagName(html, nameStart, nameEnd);
+        return tag.equals("script") || tag.equals("style") ? tag : null;
+    }
+
+    /**
+     * 解析属性直到标签结束
+     *
+     * @return '&gt;'的位置，没有时返回文本长度
+     */
+    private static int parseAttributes(String html, int i, Attributes attributes, StringBuilder buffer) {
+        final int length = html.length();
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '>') {
+                return i;
+            }
+            if (isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+            int nameStart = i;
+            while (i < length && !isAttributeNameEnd(html.charAt(i))) {
+                i++;
+            }
+            String name = tagName(html, nameStart, i);
+            while (i < length && isWhitespace(html.charAt(i))) {
+                i++;
+            }
+            if (i >= length || html.charAt(i) != '=') {
+                attributes.add(name, "");
+                continue;
+            }
+            i++;
+            while (i < length && isWhitespace(html.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            int valueStart, valueEnd;
+            char quote = html.charAt(i);
+            if (quote == '"' || quote == '\'') {
+                valueStart = ++i;
+                int close = html.indexOf(quote, i);
+                valueEnd = close < 0 ? length : close;
+                i = close < 0 ? length : close + 1;
+            } else {
+                valueStart = i;
+                while (i < length && !isUnquotedValueEnd(html, i, length)) {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            attributes.add(name, decode(html, valueStart, valueEnd, buffer));
+        }
+        return length;
+    }
+
+    private static void emitText(String html, int start, int end, StringBuilder buffer, Handler handler) {
+        if (start >= end) {
+            return;
+        }
+        if (indexOf(html, '&', start, end) < 0) {
+            handler.onText(new Region(html, start, end));
+            return;
+        }
+        buffer.setLength(0);
+        decodeInto(html, start, end, buffer);
+        handler.onText(buffer);
+    }
+
+    /**
+     * 解码一段Html文本中的实体，和解析时属性值、文本的转换一致
+     *
+     * @param html  Html文本
+     * @param start 开始位置
+     * @param end   结束位置
+     * @return 解码后的文本
+     */
+    public static String decodeEntities(String html, int start, int end) {
+        return decode(html, start, end, new StringBuilder(end - start));
+    }
+
+    /**
+     * 解码一段文本中的实体
+     */
+    private static String decode(String html, int start, int end, StringBuilder buffer) {
+        if (indexOf(html, '&', start, end) < 0) {
+            return html.substring(start, end);
+        }
+        buffer.setLength(0);
+        decodeInto(html, start, end, buffer);
+        return buffer.toString();
+    }
+
+    private static void decodeInto(String html, int start, int end, StringBuilder out) {
+        int i = start;
+        while (i < end) {
+            char c = html.charAt(i);
+            if (c != '&') {
+                out.append(c);
+                i++;
+                continue;
+            }
+            int consumed = decodeEntity(html, i, end, out);
+            if (consumed > 0) {
+                i += consumed;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 解码一个实体
+     *
+     * @return 实体占用的字符数，不是合法的实体时返回0
+     */
+    private static int decodeEntity(String html, int amp, int end, StringBuilder out) {
+        int i = amp + 1;
+        if (i >= end) {
+            return 0;
+        }
+        if (html.charAt(i) == '#') {
+            i++;
+            int radix = 10;
+            if (i < end && (html.charAt(i) == 'x' || html.charAt(i) == 'X')) {
+                radix = 16;
+                i++;
+            }
+            int digitsStart = i;
+            int code = 0;
+            while (i < end && i - digitsStart < 8) {
+                int d = Character.digit(html.charAt(i), radix);
+                if (d < 0) {
+                    break;
+                }
+                code = code * radix + d;
+                i++;
+            }
+            if (i == digitsStart || !Character.isValidCodePoint(code) || code == 0) {
+                return 0;
+            }
+            if (i < end && html.charAt(i) == ';') {
+                i++;
+            }
+            out.appendCodePoint(code);
+            return i - amp;
+        }
+        int nameStart = i;
+        while (i < end && i - nameStart < MAX_ENTITY_LENGTH && isLetterOrDigit(html.charAt(i))) {
+            i++;
+        }
+        if (i == nameStart) {
+            return 0;
+        }
+        Character decoded = ENTITIES.get(html.substring(nameStart, i));
+        if (decoded == null) {
+            return 0;
+        }
+        if (i < end && html.charAt(i) == ';') {
+            i++;
+        }
+        out.append(decoded.charValue());
+        return i - amp;
+    }
+
+    /**
+     * 标签名和属性名转换为小写，已经是小写时不复制
+     */
+    private static String tagName(String html, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = html.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return html.substring(start, end).toLowerCase(Locale.US);
+            }
+        }
+        return html.substring(start, end);
+    }
+
+    private static int indexOf(String html, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (html.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(String html, String target, int from) {
+        int max = html.length() - target.length();
+        for (int i = from; i <= max; i++) {
+            if (html.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return c == '>' || c == '/' || isWhitespace(c);
+    }
+
+    private static boolean isAttributeNameEnd(char c) {
+        return c == '=' || c == '>' || c == '/' || isWhitespace(c);
+    }
+
+    private static boolean isUnquotedValueEnd(String text, int i, int length) {
+        char c = text.charAt(i);
+        return c == '>' || isWhitespace(c) || (c == '/' && i + 1 < length && text.charAt(i + 1) == '>');
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * 原文中的一段文本，不复制字符
+     */
+    private static final class Region implements CharSequence {
+
+        private final String source;
+        private final int start;
+        private final int end;
+
+        Region(String source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int s, int e) {
+            return source.subSequence(start + s, start + e);
+        }
+
+        @Override
+        public String toString() {
+            return source.substring(start, end);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.zzhoujay.richtext.parser;
+
+/**
+ * Markdown的块边界：代码块之外的空行
+ */
+public final class MarkdownBlocks {
+
+    private MarkdownBlocks() {
+    }
+
+    /**
+     * 查找最后一个块边界
+     *
+     * @param markdown markdown
+     * @param from     开始查找的位置，必须是块边界
+     * @return 最后一个空行之后的位置，没有时返回from
+     */
+    public static int lastBoundary(CharSequence markdown, int from) {
+        int length = markdown.length();
+        int boundary = from;
+        boolean fenced = false;
+        boolean blank = true;
+        int lineStart = from;
+        for (int i = from; i < length; i++) {
+            char c = markdown.charAt(i);
+            if (c == '\n') {
+                if (isFence(markdown, lineStart, i)) {
+                    fenced = !fenced;
+                } else if (blank && !fenced && lineStart > from) {
+                    boundary = i + 1;
+                }
+                blank = true;
+                lineStart = i + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                blank = false;
+            }
+        }
+        return boundary;
+    }
+
+    /**
+     * 在代码块之外的空行之后切分Markdown
+     *
+     * @param markdown markdown
+     * @return 每一块的结束位置，最后一个元素为markdown.length()
+     */
+    public static int[] split(CharSequence markdown) {
+        int length = markdown.length();
+        int[] ends = new int[8];
+        int count = 0;
+        boolean fenced = false;
+        boolean blank = true;
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = markdown.charAt(i);
+            if (c == '\n') {
+                if (isFence(markdown, lineStart, i)) {
+                    fenced = !fenced;
+                } else if (blank && !fenced && lineStart > 0 && i + 1 < length) {
+                    if (count == ends.length) {
+                        int[] e = new int[count * 2];
+                        System.arraycopy(ends, 0, e, 0, count);
+                        ends = e;
+                    }
+                    ends[count++] = i + 1;
+                }
+                blank = true;
+                lineStart = i + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                blank = false;
+            }
+        }
+        int[] result = new int[count + 1];
+        System.arraycopy(ends, 0, result, 0, count);
+        result[count] = length;
+        return result;
+    }
+
+    /**
+     * 切分为可以单独解析的段，每一段至少size个字符
+     * 只在后面不是列表项或缩进的内容的空行处切分，保证列表和代码块不会被分开；有链接引用定义时不切分
+     *
+     * @param markdown markdown
+     * @param size     每一段的最小长度
+     * @return 每一段的结束位置，最后一个元素为markdown.length()
+     */
+    public static int[] segments(CharSequence markdown, int size) {
+        int length = markdown.length();
+        if (hasReferences(markdown)) {
+            return new int[]{length};
+        }
+        int[] blocks = split(markdown);
+        int[] ends = new int[blocks.length];
+        int count = 0;
+        int last = 0;
+        for (int i = 0; i < blocks.length - 1; i++) {
+            int end = blocks[i];
+            if (end - last >= size && isIndependent(markdown, end)) {
+                ends[count++] = end;
+                last = end;
+            }
+        }
+        ends[count++] = length;
+        int[] result = new int[count];
+        System.arraycopy(ends, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * 从start开始的行不是列表项、缩进的内容或者空行
+     */
+    private static boolean isIndependent(CharSequence markdown, int start) {
+        int length = markdown.length();
+        if (start >= length) {
+            return false;
+        }
+        char c = markdown.charAt(start);
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            return false;
+        }
+        if ((c == '-' || c == '*' || c == '+') && start + 1 < length && markdown.charAt(start + 1) == ' ') {
+            return false;
+        }
+        int i = start;
+        while (i < length && markdown.charAt(i) >= '0' && markdown.charAt(i) <= '9') {
+            i++;
+        }
+        return i == start || i >= length || (markdown.charAt(i) != '.' && markdown.charAt(i) != ')');
+    }
+
+    /**
+     * 是否有[id]: url形式的链接引用定义，定义可以在文档的任何位置被引用
+     */
+    private static boolean hasReferences(CharSequence markdown) {
+        int length = markdown.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int i = lineStart;
+            while (i < length && i - lineStart < 3 && markdown.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < length && markdown.charAt(i) == '[') {
+                int j = i + 1;
+                while (j < length && markdown.charAt(j) != ']' && markdown.charAt(j) != '\n') {
+                    j++;
+                }
+                if (j + 1 < length && markdown.charAt(j) == ']' && markdown.charAt(j + 1) == ':') {
+                    return true;
+                }
+            }
+            while (lineStart < length && markdown.charAt(lineStart) != '\n') {
+                lineStart++;
+            }
+            lineStart++;
+        }
+        return false;
+    }
+
+    /**
+     * 是否是```或~~~开始的行
+     */
+    private static boolean isFence(CharSequence markdown, int start, int end) {
+        int i = start;
+        while (i < end && i - start < 4 && markdown.charAt(i) == ' ') {
+            i++;
+        }
+        if (i + 3 > end) {
+            return false;
+        }
+        char c = markdown.charAt(i);
+        return (c == '`' || c == '~') && markdown.charAt(i + 1) == c && markdown.charAt(i + 2) == c;
+    }
+}
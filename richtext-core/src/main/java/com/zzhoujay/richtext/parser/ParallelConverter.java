@@ -0,0 +1,99 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+import com.zzhoujay.richtext.ext.SegmentTasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * 分段并行转换Html，在顶层的块之间切分，每一段单独转换后按顺序拼接，结果与整篇转换相同
+ * 列表不会跨越切分的位置，序号不受影响；图片只记录在span中，由调用者按顺序生成
+ */
+public final class ParallelConverter {
+
+    // 顶层的块结束时通常会留下一个空行，按这个前文转换，实际的前文不同时再重新转换这一段
+    private static final String ASSUMED_CONTEXT = "\n\n";
+
+    private ParallelConverter() {
+    }
+
+    /**
+     * 转换Html为RichDocument
+     *
+     * @param html        html
+     * @param segmentSize 每一段的最小长度
+     * @param executor    转换使用的线程池
+     * @return RichDocument
+     */
+    public static RichDocument toDocument(final String html, int segmentSize, Executor executor) {
+        final int[] ends = HtmlBlocks.split(html, segmentSize, segmentSize);
+        if (ends.length == 1) {
+            return HtmlConverter.toDocument(html);
+        }
+        List<Callable<Segment>> tasks = new ArrayList<>(ends.length);
+        for (int i = 0; i < ends.length; i++) {
+            final int start = i == 0 ? 0 : ends[i - 1];
+            final int end = ends[i];
+            final String context = i == 0 ? "" : ASSUMED_CONTEXT;
+            tasks.add(new Callable<Segment>() {
+                @Override
+                public Segment call() {
+                    return Segment.convert(html, start, end, context);
+                }
+            });
+        }
+        List<Segment> segments = SegmentTasks.invokeAll(tasks, executor);
+        StringBuilder text = new StringBuilder(html.length());
+        List<SpanRecord> spans = new ArrayList<>();
+        for (int i = 0; i < ends.length; i++) {
+            Segment segment = segments.get(i);
+            if (i > 0) {
+                String context = HtmlConverter.contextBefore(text, text.length());
+                if (!context.equals(segment.context)) {
+                    segment = Segment.convert(html, ends[i - 1], ends[i], context);
+                }
+            }
+            int base = text.length();
+            text.append(segment.text);
+            for (SpanRecord span : segment.spans) {
+                spans.add(new SpanRecord(span.getType(), span.getStart() + base, span.getEnd() + base,
+                        span.getFlags(), span.getValue(), span.getPayload()));
+            }
+        }
+        return new RichDocument(text.toString(), spans);
+    }
+
+    /**
+     * 一段的转换结果，span的位置从这一段的开头计算
+     */
+    private static class Segment {
+
+        final String context;
+        final String text;
+        final List<SpanRecord> spans;
+
+        Segment(String context, String text, List<SpanRecord> spans) {
+            this.context = context;
+            this.text = text;
+            this.spans = spans;
+        }
+
+        static Segment convert(String html, int start, int end, String context) {
+            final List<SpanRecord> spans = new ArrayList<>();
+            final int offset = context.length();
+            HtmlConverter converter = new HtmlConverter(new HtmlConverter.SpanSink() {
+                @Override
+                public void setSpan(int type, int start, int end, int value, String payload) {
+                    spans.add(new SpanRecord(type, start - offset, end - offset, HtmlConverter.SPAN_EXCLUSIVE_EXCLUSIVE, value, payload));
+                }
+            }, context);
+            converter.feed(html.substring(start, end));
+            converter.finish();
+            return new Segment(context, converter.substring(offset), spans);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.cache.SpanRecord;
+
+/**
+ * 按顺序收集HtmlConverter转换出的span，图片按文档顺序编号
+ * 可点击时图片同时生成点击span，包含图片的链接不再生成链接span
+ * span对象由子类创建，这里只处理和平台无关的收集和点击事件的取舍
+ */
+public abstract class SpanCollector implements HtmlConverter.SpanSink {
+
+    private final boolean clickable;
+
+    private Object[] spans = new Object[32];
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private int count;
+
+    // 图片的位置，按文档顺序
+    private int[] imageStarts = new int[16];
+    private int imageCount;
+
+    /**
+     * @param clickable true:图片和链接生成可点击的span
+     */
+    protected SpanCollector(boolean clickable) {
+        this.clickable = clickable;
+    }
+
+    @Override
+    public void setSpan(int type, int start, int end, int value, String payload) {
+        Object span;
+        switch (type) {
+            case SpanRecord.TYPE_IMAGE:
+                span = createSpan(type, value, payload);
+                if (clickable) {
+                    add(span, start, end);
+                    span = createImageClickSpan(payload, imageCount);
+                    addImage(start);
+                }
+                break;
+            case SpanRecord.TYPE_URL:
+                if (!clickable) {
+                    span = createSpan(type, value, payload);
+                } else if (containsImage(start, end)) {
+                    // 图片的点击事件优先
+                    return;
+                } else {
+                    span = createUrlClickSpan(payload);
+                }
+                break;
+            default:
+                span = createSpan(type, value, payload);
+                break;
+        }
+        if (span != null) {
+            add(span, start, end);
+        }
+    }
+
+    /**
+     * 根据类型创建span
+     *
+     * @param type    {@link SpanRecord}中的类型
+     * @param value   整型参数
+     * @param payload 字符串参数
+     * @return span，不支持的类型返回null
+     */
+    protected abstract Object createSpan(int type, int value, String payload);
+
+    /**
+     * @param source 图片地址
+     * @param index  图片在文档中的序号
+     * @return 图片的点击span
+     */
+    protected abstract Object createImageClickSpan(String source, int index);
+
+    /**
+     * @param url 链接
+     * @return 链接的点击span
+     */
+    protected abstract Object createUrlClickSpan(String url);
+
+    /**
+     * @return 目前收集到的span数量
+     */
+    public int size() {
+        return count;
+    }
+
+    public Object spanAt(int index) {
+        return spans[index];
+    }
+
+    public int startAt(int index) {
+        return starts[index];
+    }
+
+    public int endAt(int index) {
+        return ends[index];
+    }
+
+    /**
+     * 清空收集到的span，图片的序号继续累加
+     */
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            spans[i] = null;
+        }
+        count = 0;
+    }
+
+    private void add(Object span, int start, int end) {
+        if (count == spans.length) {
+            int capacity = count * 2;
+            Object[] s = new Object[capacity];
+            int[] st = new int[capacity];
+            int[] e = new int[capacity];
+            System.arraycopy(spans, 0, s, 0, count);
+            System.arraycopy(starts, 0, st, 0, count);
+            System.arraycopy(ends, 0, e, 0, count);
+            spans = s;
+            starts = st;
+            ends = e;
+        }
+        spans[count] = span;
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private void addImage(int start) {
+        if (imageCount == imageStarts.length) {
+            int[] s = new int[imageCount * 2];
+            System.arraycopy(imageStarts, 0, s, 0, imageCount);
+            imageStarts = s;
+        }
+        imageStarts[imageCount++] = start;
+    }
+
+    /**
+     * 图片按位置有序，二分查找第一个不在start之前的图片
+     */
+    private boolean containsImage(int start, int end) {
+        int low = 0, high = imageCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (imageStarts[mid] < start) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low < imageCount && imageStarts[low] < end;
+    }
+}
@@ -0,0 +1,36 @@
+package com.zzhoujay.richtext.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ImageSizeCache的索引写满后按加入顺序淘汰
+ */
+public class ImageSizeCacheTest {
+
+    @Test
+    public void put_evictsOldestEntriesWhenFull() {
+        ImageSizeCache cache = ImageSizeCache.getCache();
+        int total = 4096 + 100;
+        for (int i = 0; i < total; i++) {
+            cache.put("http://evict/" + i + ".png", i + 1, 10, false);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertNull(cache.get("http://evict/" + i + ".png"));
+        }
+        // 淘汰之后其余的条目仍然都能找到
+        for (int i = 100; i < total; i++) {
+            ImageSizeCache.ImageSize size = cache.get("http://evict/" + i + ".png");
+            assertNotNull(size);
+            assertEquals(i + 1, size.getWidth());
+        }
+    }
+
+    @Test
+    public void put_ignoresDataUris() {
+        ImageSizeCache cache = ImageSizeCache.getCache();
+        cache.put("data:image/png;base64,AAAA", 10, 10, false);
+        assertNull(cache.get("data:image/png;base64,AAAA"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.zzhoujay.richtext.cache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SoftLruCache按大小和访问顺序淘汰
+ */
+public class SoftLruCacheTest {
+
+    /**
+     * 字符串按长度计算大小
+     */
+    private static SoftLruCache<String, String> cache(long maxSize) {
+        return new SoftLruCache<String, String>(maxSize) {
+            @Override
+            protected long sizeOf(String key, String value) {
+                return value.length();
+            }
+        };
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        SoftLruCache<String, String> cache = cache(10);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals("aaaa", cache.get("a"));
+        cache.put("c", "cccc");
+        assertNull(cache.get("b"));
+        assertEquals("aaaa", cache.get("a"));
+        assertEquals("cccc", cache.get("c"));
+        assertEquals(8, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void put_replacesAndUpdatesSize() {
+        SoftLruCache<String, String> cache = cache(10);
+        cache.put("a", "aaaa");
+        cache.put("a", "aa");
+        assertEquals("aa", cache.get("a"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.count());
+    }
+
+    @Test
+    public void put_skipsEntriesLargerThanMaxSize() {
+        SoftLruCache<String, String> cache = cache(4);
+        cache.put("a", "aa");
+        cache.put("a", "aaaaa");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void resize_trimsImmediately() {
+        SoftLruCache<String, String> cache = cache(10);
+        cache.put("a", "aaa");
+        cache.put("b", "bbb");
+        cache.resize(4);
+        assertNull(cache.get("a"));
+        assertEquals("bbb", cache.get("b"));
+        assertEquals(4, cache.maxSize());
+    }
+
+    @Test
+    public void remove_andEvictAll() {
+        SoftLruCache<String, String> cache = cache(10);
+        cache.put("a", "aaa");
+        cache.put("b", "bbb");
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(3, cache.size());
+        cache.evictAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsNonPositiveSize() {
+        cache(0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.zzhoujay.richtext.cache;
+
+import org.junit.Test;
+
+import java.security.MessageDigest;
+
+import static org.junit.Assert.*;
+
+/**
+ * StreamDigest分段计算的结果与对整篇文本调用RichCacheManager.generateKey相同
+ */
+public class StreamDigestTest {
+
+    /**
+     * 与RichCacheManager.generateKey相同的计算方式
+     */
+    private static String generateKey(String text, String config) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        digest.update(text.getBytes("UTF-8"));
+        if (config != null) {
+            digest.update(config.getBytes("UTF-8"));
+        }
+        byte[] bytes = digest.digest();
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按固定长度分段计算
+     */
+    private static String digest(String text, int chunk, String config) {
+        StreamDigest digest = new StreamDigest();
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i += chunk) {
+            digest.update(chars, i, Math.min(chunk, chars.length - i));
+        }
+        return digest.finish(config);
+    }
+
+    @Test
+    public void matchesGenerateKey() throws Exception {
+        String text = "<p>hello 世界 é</p>";
+        for (int chunk = 1; chunk <= text.length(); chunk++) {
+            assertEquals(generateKey(text, "0_1_false"), digest(text, chunk, "0_1_false"));
+        }
+        assertEquals(generateKey(text, null), digest(text, 4, null));
+    }
+
+    @Test
+    public void matchesGenerateKeyAcrossSplitSurrogates() throws Exception {
+        // 😀由两个char组成，分段长度为奇数时会在代理对的中间切开
+        String text = "a😀b😀😀c";
+        for (int chunk = 1; chunk <= text.length(); chunk++) {
+            assertEquals("chunk " + chunk, generateKey(text, "cfg"), digest(text, chunk, "cfg"));
+        }
+    }
+
+    @Test
+    public void matchesGenerateKeyWithUnpairedSurrogates() throws Exception {
+        String text = "a\uD83Db\uDE00c\uD83D";
+        for (int chunk = 1; chunk <= text.length(); chunk++) {
+            assertEquals("chunk " + chunk, generateKey(text, "cfg"), digest(text, chunk, "cfg"));
+        }
+    }
+
+    @Test
+    public void matchesGenerateKeyForLongText() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("<p>段落").append(i).append("😀</p>");
+        }
+        String text = sb.toString();
+        assertEquals(generateKey(text, "cfg"), digest(text, 8 * 1024 - 1, "cfg"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.zzhoujay.richtext.ext;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * DataUri的格式判断、Base64解码和边读边解码的输入流
+ */
+public class DataUriTest {
+
+    private static final String HELLO = "data:image/png;base64,aGVsbG8gd29ybGQ=";
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    /**
+     * 标准Base64编码，每76个字符换行
+     */
+    private static String encode(byte[] data) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < data.length; i += 3) {
+            int b = (data[i] & 0xff) << 16;
+            if (i + 1 < data.length) {
+                b |= (data[i + 1] & 0xff) << 8;
+            }
+            if (i + 2 < data.length) {
+                b |= data[i + 2] & 0xff;
+            }
+            sb.append(ALPHABET.charAt(b >> 18)).append(ALPHABET.charAt((b >> 12) & 0x3f));
+            sb.append(i + 1 < data.length ? ALPHABET.charAt((b >> 6) & 0x3f) : '=');
+            sb.append(i + 2 < data.length ? ALPHABET.charAt(b & 0x3f) : '=');
+            if (sb.length() % 77 == 76) {
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void parse_recognisesBase64Images() {
+        assertNotNull(DataUri.parse(HELLO));
+        assertTrue(DataUri.isDataUri("data:image/svg+xml;base64,AAAA"));
+        assertTrue(DataUri.isDataUri("DATA:IMAGE/PNG;charset=x;BASE64,AAAA"));
+        assertFalse(DataUri.isDataUri("data:text/plain;base64,AAAA"));
+        assertFalse(DataUri.isDataUri("data:image/png,AAAA"));
+        assertNull(DataUri.parse("http://example.com/a.png"));
+        assertNull(DataUri.parse(null));
+    }
+
+    @Test
+    public void decode_wholeData() throws IOException {
+        assertEquals("hello world", new String(DataUri.parse(HELLO).decode(), "UTF-8"));
+        assertEquals("hello world", new String(Base64.decode(HELLO), "UTF-8"));
+        assertNull(Base64.decode("http://example.com/a.png"));
+    }
+
+    @Test
+    public void openStream_matchesDecode() throws IOException {
+        StringBuilder sb = new StringBuilder("data:image/gif;base64,");
+        byte[] data = new byte[20000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + (i >> 8));
+        }
+        sb.append(encode(data));
+        DataUri dataUri = DataUri.parse(sb.toString());
+        assertArrayEquals(data, dataUri.decode());
+
+        InputStream in = dataUri.openStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[777];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        in.close();
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void id_dependsOnlyOnData() {
+        DataUri png = DataUri.parse(HELLO);
+        DataUri gif = DataUri.parse("data:image/gif;base64,aGVsbG8gd29ybGQ=");
+        DataUri other = DataUri.parse("data:image/png;base64,aGVsbG8=");
+        assertEquals(png.getId(), gif.getId());
+        assertFalse(png.getId().equals(other.getId()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.zzhoujay.richtext.ext;
+
+import com.zzhoujay.richtext.ImageHolder;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import static org.junit.Assert.*;
+
+/**
+ * ImageScanner的属性读取和图片顺序
+ */
+public class ImageScannerTest {
+
+    @Test
+    public void scan_readsAttributesInAllQuoteStyles() {
+        HashMap<String, LinkedList<ImageHolder>> images = new HashMap<>();
+        int count = ImageScanner.scan("<p><img src=\"a.png\" width=10 height='20'></p><IMG SRC=b.gif/>", images);
+        assertEquals(2, count);
+        ImageHolder a = images.get("a.png").getFirst();
+        assertEquals(10, a.getWidth());
+        assertEquals(20, a.getHeight());
+        assertEquals(0, a.getPosition());
+        ImageHolder b = images.get("b.gif").getFirst();
+        assertEquals(1, b.getPosition());
+        assertTrue(b.isGif());
+    }
+
+    @Test
+    public void scan_keepsSameSourceInDocumentOrder() {
+        HashMap<String, LinkedList<ImageHolder>> images = new HashMap<>();
+        ImageScanner.scan("<img src=\"a.png\"><img src=\"b.png\"><img src=\"a.png\">", images);
+        LinkedList<ImageHolder> holders = images.get("a.png");
+        assertEquals(2, holders.size());
+        assertEquals(0, holders.get(0).getPosition());
+        assertEquals(2, holders.get(1).getPosition());
+    }
+
+    @Test
+    public void scan_skipsImagesWithoutSourceAndDecodesAmp() {
+        HashMap<String, LinkedList<ImageHolder>> images = new HashMap<>();
+        int count = ImageScanner.scan("<img alt=x><imgx src=\"n.png\"><img src=\"c?x=1&amp;y=2\">", images);
+        assertEquals(1, count);
+        assertNotNull(images.get("c?x=1&y=2"));
+        assertNull(images.get("n.png"));
+    }
+
+    @Test
+    public void scan_decodesNamedAndNumericEntitiesInSource() {
+        HashMap<String, LinkedList<ImageHolder>> images = new HashMap<>();
+        ImageScanner.scan("<img src=\"caf&eacute;.png?a=1&#38;b=2&#x26;c\">", images);
+        assertNotNull(images.get("caf\u00e9.png?a=1&b=2&c"));
+    }
+
+    @Test
+    public void scan_continuesPositionAcrossChunks() {
+        HashMap<String, LinkedList<ImageHolder>> images = new HashMap<>();
+        int position = ImageScanner.scan("<img src=\"a.png\">", images, 0);
+        position = ImageScanner.scan("<img src=\"b.png\">", images, position);
+        assertEquals(2, position);
+        assertEquals(1, images.get("b.png").getFirst().getPosition());
+    }
+
+    @Test
+    public void isGif_ignoresCase() {
+        assertTrue(ImageScanner.isGif("a.GIF"));
+        assertFalse(ImageScanner.isGif(".gif"));
+        assertFalse(ImageScanner.isGif("a.png"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.zzhoujay.richtext.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * BlockDiff找出修改前后没有变化的块
+ */
+public class BlockDiffTest {
+
+    private static final String OLD = "<p>a</p><p>b</p><p>c</p>";
+
+    @Test
+    public void changedMiddleBlock() {
+        String source = "<p>a</p><p>x</p><p>c</p>";
+        int[] oldEnds = HtmlBlocks.split(OLD, 0, 0);
+        int[] newEnds = HtmlBlocks.split(source, 0, 0);
+        int prefix = BlockDiff.commonPrefix(OLD, oldEnds, source, newEnds);
+        assertEquals(1, prefix);
+        assertEquals(1, BlockDiff.commonSuffix(OLD, oldEnds, source, newEnds, prefix));
+    }
+
+    @Test
+    public void insertedBlock() {
+        String source = "<p>a</p><p>new</p><p>b</p><p>c</p>";
+        int[] oldEnds = HtmlBlocks.split(OLD, 0, 0);
+        int[] newEnds = HtmlBlocks.split(source, 0, 0);
+        int prefix = BlockDiff.commonPrefix(OLD, oldEnds, source, newEnds);
+        assertEquals(1, prefix);
+        assertEquals(2, BlockDiff.commonSuffix(OLD, oldEnds, source, newEnds, prefix));
+    }
+
+    @Test
+    public void suffixDoesNotOverlapPrefix() {
+        String source = "<p>a</p><p>a</p>";
+        int[] oldEnds = HtmlBlocks.split("<p>a</p>", 0, 0);
+        int[] newEnds = HtmlBlocks.split(source, 0, 0);
+        int prefix = BlockDiff.commonPrefix("<p>a</p>", oldEnds, source, newEnds);
+        assertEquals(1, prefix);
+        assertEquals(0, BlockDiff.commonSuffix("<p>a</p>", oldEnds, source, newEnds, prefix));
+    }
+
+    @Test
+    public void start_ofBlock() {
+        int[] ends = {3, 7, 10};
+        assertEquals(0, BlockDiff.start(ends, 0));
+        assertEquals(7, BlockDiff.start(ends, 2));
+    }
+}
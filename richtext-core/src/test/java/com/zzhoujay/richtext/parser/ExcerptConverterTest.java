@@ -0,0 +1,48 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.ExcerptConfig;
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ExcerptConverter在第一个达到的限制处截断
+ */
+public class ExcerptConverterTest {
+
+    @Test
+    public void maxChars_cutsAndClosesOpenSpans() {
+        RichDocument document = ExcerptConverter.toDocument("<p>hello <b>world</b> again</p><p>second</p>", new ExcerptConfig().maxChars(8));
+        assertEquals("hello wo" + ExcerptConfig.DEFAULT_ELLIPSIS, document.getText());
+        List<SpanRecord> spans = document.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals(6, spans.get(0).getStart());
+        assertEquals(8, spans.get(0).getEnd());
+    }
+
+    @Test
+    public void maxBlocks_cutsBetweenBlocks() {
+        RichDocument document = ExcerptConverter.toDocument("<p>one</p><p>two</p><p>three</p>", new ExcerptConfig().maxBlocks(2));
+        assertEquals("one\n\ntwo" + ExcerptConfig.DEFAULT_ELLIPSIS, document.getText());
+    }
+
+    @Test
+    public void maxImages_dropsLaterImages() {
+        RichDocument document = ExcerptConverter.toDocument("<p>a<img src=\"1.png\">b<img src=\"2.png\">c</p>", new ExcerptConfig().maxImages(1));
+        assertEquals("a￼b" + ExcerptConfig.DEFAULT_ELLIPSIS, document.getText());
+        List<SpanRecord> spans = document.getSpans();
+        assertEquals(1, spans.size());
+        assertEquals("1.png", spans.get(0).getPayload());
+    }
+
+    @Test
+    public void noEllipsisWhenOnlyWhitespaceFollows() {
+        assertEquals("one\n\ntwo\n\n", ExcerptConverter.toDocument("<p>one</p><p>two</p>   ", new ExcerptConfig().maxBlocks(2)).getText());
+        assertEquals("short\n\n", ExcerptConverter.toDocument("<p>short</p>", new ExcerptConfig().maxChars(100)).getText());
+    }
+}
@@ -0,0 +1,45 @@
+package com.zzhoujay.richtext.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * HtmlBlocks只在顶层的块之间切分
+ */
+public class HtmlBlocksTest {
+
+    @Test
+    public void split_betweenTopLevelBlocks() {
+        String html = "<p>a</p><div><p>b</p></div><p>c</p>";
+        assertArrayEquals(new int[]{8, 27, html.length()}, HtmlBlocks.split(html, 0, 0));
+    }
+
+    @Test
+    public void split_ignoresGreaterThanInsideQuotes() {
+        String html = "<p title=\"a>b\">x</p><p>y</p>";
+        assertArrayEquals(new int[]{20, html.length()}, HtmlBlocks.split(html, 0, 0));
+    }
+
+    @Test
+    public void split_respectsMinimumChunkSizes() {
+        String html = "<p>a</p><p>b</p><p>c</p>";
+        assertArrayEquals(new int[]{16, html.length()}, HtmlBlocks.split(html, 10, 100));
+    }
+
+    @Test
+    public void split_skipsScriptContent() {
+        String html = "<script>document.write('</p>')</script><p>a</p>";
+        int[] ends = HtmlBlocks.split(html, 0, 0);
+        assertEquals(html.length(), ends[ends.length - 1]);
+        for (int end : ends) {
+            assertTrue(end <= 8 || end >= html.indexOf("</script>") + 9);
+        }
+    }
+
+    @Test
+    public void split_unclosedDocumentIsOneBlock() {
+        String html = "<div><p>a</p><p>b</p>";
+        assertArrayEquals(new int[]{html.length()}, HtmlBlocks.split(html, 0, 0));
+    }
+}
@@ -0,0 +1,108 @@
+package com.zzhoujay.richtext.parser;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * HtmlConverter的文本、span以及与TagSoup一致的隐式结束标签
+ */
+public class HtmlConverterTest {
+
+    /**
+     * 文本和span记录成字符串，便于比较两种写法的结果
+     */
+    private static String dump(String html) {
+        RichDocument document = HtmlConverter.toDocument(html);
+        StringBuilder sb = new StringBuilder(document.getText());
+        for (SpanRecord span : document.getSpans()) {
+            sb.append('|').append(span.getType()).append(':').append(span.getStart()).append('-').append(span.getEnd())
+                    .append(':').append(span.getValue()).append(':').append(span.getPayload());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void convert_stylesLinksAndImages() {
+        RichDocument document = HtmlConverter.toDocument("<b>bold</b> <i>it</i> <a href=\"u?a=1&amp;b=2\">link</a><img src=\"x.png\">");
+        assertEquals("bold it link￼", document.getText());
+        List<SpanRecord> spans = document.getSpans();
+        assertEquals(4, spans.size());
+        assertEquals(SpanRecord.TYPE_STYLE, spans.get(0).getType());
+        assertEquals(HtmlConverter.STYLE_BOLD, spans.get(0).getValue());
+        assertEquals(SpanRecord.TYPE_URL, spans.get(2).getType());
+        assertEquals("u?a=1&b=2", spans.get(2).getPayload());
+        assertEquals(8, spans.get(2).getStart());
+        assertEquals(12, spans.get(2).getEnd());
+        assertEquals(SpanRecord.TYPE_IMAGE, spans.get(3).getType());
+        assertEquals("x.png", spans.get(3).getPayload());
+    }
+
+    @Test
+    public void convert_collapsesWhitespaceAndDecodesEntities() {
+        assertEquals("a&b <c> é x AB\n\n", HtmlConverter.toDocument("<p>a&amp;b  &lt;c&gt;\n &eacute;&nbsp;x &#65;&#x42;</p>").getText());
+    }
+
+    @Test
+    public void convert_listBullets() {
+        RichDocument document = HtmlConverter.toDocument("<ol><li>one</li><li>two</li></ol>");
+        assertEquals("\none\ntwo\n\n", document.getText());
+        List<SpanRecord> spans = document.getSpans();
+        assertEquals(SpanRecord.TYPE_BULLET, spans.get(0).getType());
+        assertEquals(0, HtmlConverter.bulletLevel(spans.get(1).getValue()));
+        assertEquals(HtmlConverter.packBullet(0, 2), spans.get(1).getValue());
+    }
+
+    @Test
+    public void packBullet_roundTrips() {
+        int value = HtmlConverter.packBullet(3, -1);
+        assertEquals(3, HtmlConverter.bulletLevel(value));
+        assertEquals(-1, HtmlConverter.bulletIndex(value));
+        assertEquals(41, HtmlConverter.bulletIndex(HtmlConverter.packBullet(0, 41)));
+    }
+
+    @Test
+    public void convert_closesListItemsImplicitly() {
+        assertEquals(dump("<ul><li>one</li><li>two</li></ul>"), dump("<ul><li>one<li>two</ul>"));
+        assertEquals(dump("<ol><li>one</li><li>two</li></ol>"), dump("<ol><li>one<li>two</ol>"));
+        assertEquals(dump("<ul><li>a<ul><li>b</li></ul></li><li>c</li></ul>"), dump("<ul><li>a<ul><li>b</ul><li>c</ul>"));
+    }
+
+    @Test
+    public void convert_closesParagraphsImplicitly() {
+        assertEquals(dump("<p>one</p><p>two</p>"), dump("<p>one<p>two"));
+        assertEquals(dump("<p>one</p><div>two</div>"), dump("<p>one<div>two</div>"));
+    }
+
+    @Test
+    public void feed_matchesWholeConversion() {
+        String html = "<p>a <b>b</b></p><ul><li>c</li></ul><p>d</p>";
+        final StringBuilder spans = new StringBuilder();
+        HtmlConverter converter = new HtmlConverter(new HtmlConverter.SpanSink() {
+            @Override
+            public void setSpan(int type, int start, int end, int value, String payload) {
+                spans.append('|').append(type).append(':').append(start).append('-').append(end)
+                        .append(':').append(value).append(':').append(payload);
+            }
+        });
+        int start = 0;
+        for (int end : HtmlBlocks.split(html, 0, 0)) {
+            converter.feed(html.substring(start, end));
+            start = end;
+        }
+        converter.finish();
+        assertEquals(dump(html), converter.substring(0) + spans);
+    }
+
+    @Test
+    public void contextBefore_keepsLastTwoChars() {
+        assertEquals("b\n", HtmlConverter.contextBefore("ab\ncd", 3));
+        assertEquals("a", HtmlConverter.contextBefore("abc", 1));
+        assertEquals("", HtmlConverter.contextBefore("abc", 0));
+    }
+}
@@ -0,0 +1,81 @@
+package com.zzhoujay.richtext.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * HtmlTokenizer的分词、实体解码和追加模式下的可解析长度
+ */
+public class HtmlTokenizerTest {
+
+    /**
+     * 把回调记录成字符串，便于比较
+     */
+    private static String tokens(String html) {
+        final StringBuilder sb = new StringBuilder();
+        HtmlTokenizer.tokenize(html, new HtmlTokenizer.Handler() {
+            @Override
+            public void onText(CharSequence text) {
+                sb.append('"').append(text).append('"');
+            }
+
+            @Override
+            public void onStartTag(String tag, HtmlTokenizer.Attributes attributes, boolean selfClosing) {
+                sb.append('<').append(tag);
+                for (int i = 0; i < attributes.size(); i++) {
+                    sb.append(' ').append(attributes.getName(i)).append('=').append(attributes.getValue(i));
+                }
+                sb.append(selfClosing ? "/>" : ">");
+            }
+
+            @Override
+            public void onEndTag(String tag) {
+                sb.append("</").append(tag).append('>');
+            }
+        });
+        return sb.toString();
+    }
+
+    @Test
+    public void tokenize_tagsAttributesAndText() {
+        assertEquals("<a href=u title=x>y>\"t\"</a><img src=x/>", tokens("<A HREF=u title='x>y'>t</a><img src=x />"));
+    }
+
+    @Test
+    public void tokenize_skipsCommentsAndScripts() {
+        assertEquals("\"a\"<script></script>\"b\"\"c\"", tokens("a<script>var s='<b>';</script>b<!-- <i> -->c"));
+    }
+
+    @Test
+    public void tokenize_decodesEntities() {
+        assertEquals("\"a&b <c> AB\"", tokens("a&amp;b &lt;c&gt; &#65;&#x42;"));
+        assertEquals("\"&unknown;\"", tokens("&unknown;"));
+    }
+
+    @Test
+    public void tokenize_decodesHtml4Entities() {
+        assertEquals("\" éü♥Ω—€\"", tokens("&nbsp;&eacute;&uuml;&hearts;&Omega;&mdash;&euro;"));
+    }
+
+    @Test
+    public void completeLength_waitsForUnfinishedTags() {
+        assertEquals(9, HtmlTokenizer.completeLength("a<b>c</b>"));
+        assertEquals(2, HtmlTokenizer.completeLength("ab<a title=\"x>y"));
+        assertEquals(2, HtmlTokenizer.completeLength("ab</"));
+        assertEquals(1, HtmlTokenizer.completeLength("x<!-- y"));
+    }
+
+    @Test
+    public void completeLength_waitsForScriptEnd() {
+        assertEquals(0, HtmlTokenizer.completeLength("<script>var a='<b>'"));
+        String script = "<script>var a='<b>'</script>";
+        assertEquals(script.length(), HtmlTokenizer.completeLength(script + "<i"));
+    }
+
+    @Test
+    public void completeLength_waitsForUnfinishedEntity() {
+        assertEquals(2, HtmlTokenizer.completeLength("a &amp"));
+        assertEquals(7, HtmlTokenizer.completeLength("a &amp;"));
+    }
+}
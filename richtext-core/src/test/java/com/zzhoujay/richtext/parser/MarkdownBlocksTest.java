@@ -0,0 +1,28 @@
+package com.zzhoujay.richtext.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * MarkdownBlocks按代码块之外的空行切分
+ */
+public class MarkdownBlocksTest {
+
+    @Test
+    public void split_keepsCodeBlocksWhole() {
+        String markdown = "# t\n\npara\n\n```\ncode\n\nmore\n```\n\nend";
+        assertArrayEquals(new int[]{5, 11, 31, markdown.length()}, MarkdownBlocks.split(markdown));
+    }
+
+    @Test
+    public void split_singleBlock() {
+        assertArrayEquals(new int[]{3}, MarkdownBlocks.split("abc"));
+    }
+
+    @Test
+    public void lastBoundary_beforeUnfinishedBlock() {
+        assertEquals(6, MarkdownBlocks.lastBoundary("a\n\nb\n\nc", 0));
+        assertEquals(0, MarkdownBlocks.lastBoundary("abc", 0));
+    }
+}
@@ -0,0 +1,65 @@
+package com.zzhoujay.richtext.parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SpanCollector的图片编号和点击事件的取舍
+ */
+public class SpanCollectorTest {
+
+    /**
+     * span用字符串代替，便于比较生成的是哪一种span
+     */
+    private static SpanCollector collector(boolean clickable) {
+        return new SpanCollector(clickable) {
+            @Override
+            protected Object createSpan(int type, int value, String payload) {
+                return "span:" + payload;
+            }
+
+            @Override
+            protected Object createImageClickSpan(String source, int index) {
+                return "image:" + index;
+            }
+
+            @Override
+            protected Object createUrlClickSpan(String url) {
+                return "url:" + url;
+            }
+        };
+    }
+
+    @Test
+    public void clickable_numbersImagesAndDropsLinksAroundThem() {
+        SpanCollector collector = collector(true);
+        HtmlConverter.convert("<img src=\"a.png\"><a href=\"x\"><img src=\"b.png\"></a> <a href=\"y\">y</a>", collector);
+        assertEquals(5, collector.size());
+        assertEquals("span:a.png", collector.spanAt(0));
+        assertEquals("image:0", collector.spanAt(1));
+        assertEquals("span:b.png", collector.spanAt(2));
+        assertEquals("image:1", collector.spanAt(3));
+        assertEquals("url:y", collector.spanAt(4));
+    }
+
+    @Test
+    public void notClickable_keepsPlainSpans() {
+        SpanCollector collector = collector(false);
+        HtmlConverter.convert("<a href=\"x\"><img src=\"b.png\"></a>", collector);
+        assertEquals(2, collector.size());
+        assertEquals("span:b.png", collector.spanAt(0));
+        assertEquals("span:x", collector.spanAt(1));
+    }
+
+    @Test
+    public void clear_keepsImageNumbering() {
+        SpanCollector collector = collector(true);
+        HtmlConverter converter = new HtmlConverter(collector);
+        converter.feed("<img src=\"a.png\">");
+        collector.clear();
+        assertEquals(0, collector.size());
+        converter.feed("<img src=\"b.png\">");
+        assertEquals("image:1", collector.spanAt(1));
+    }
+}
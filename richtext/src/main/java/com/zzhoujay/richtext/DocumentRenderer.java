@@ -0,0 +1,165 @@
+package com.zzhoujay.richtext;
+
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.cache.DocumentDiskCache;
+import com.zzhoujay.richtext.cache.RichCacheManager;
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanCodec;
+import com.zzhoujay.richtext.parser.RichHtmlParser;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 整篇解析后一次显示，同步模式在主线程中解析，{@link RichText#async(boolean)}模式在后台线程中解析
+ * 依次使用内存缓存、磁盘缓存、预取的解析结果，都没有时才解析，子类通过{@link #parse(String)}改变解析的方式
+ */
+class DocumentRenderer extends Renderer {
+
+    DocumentRenderer(RichText richText) {
+        super(richText);
+    }
+
+    @Override
+    void into(final TextView textView) {
+        if (richText.isAsync()) {
+            generateAsync();
+        } else {
+            post(textView, new Runnable() {
+                @Override
+                public void run() {
+                    CharSequence cs = generate(richText.getSourceText());
+                    richText.setRichText(textView, cs, richText.takePendingImages());
+                }
+            });
+        }
+    }
+
+    /**
+     * 在后台线程中生成富文本，完成后在主线程中显示
+     */
+    void generateAsync() {
+        richText.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final TextView tv = richText.getTextView();
+                if (tv == null || richText.isStale(tv)) {
+                    return;
+                }
+                final CharSequence cs = generate(richText.getSourceText());
+                final List<RichText.PendingImage> images = richText.takePendingImages();
+                post(tv, new Runnable() {
+                    @Override
+                    public void run() {
+                        richText.setRichText(tv, cs, images);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 生成富文本
+     *
+     * @param text 源文本
+     * @return Spanned
+     */
+    CharSequence generate(String text) {
+        CharSequence loaded = richText.getLoadedText();
+        if (loaded != null) {
+            return loaded;
+        }
+        // 只能读取一次的流在解析时才能得到key
+        String key = richText.getCacheKey();
+        CharSequence cs = key == null ? null : RichCacheManager.getCache().get(key);
+        if (cs != null) {
+            return cs;
+        }
+        richText.setState(RichState.loading);
+        richText.resetImages(richText.getType() != RichType.MARKDOWN ? text : null, 0);
+
+        TextView textView = richText.getTextView();
+        if (textView == null) {
+            return null;
+        }
+        richText.beginParse();
+
+        Spanned spanned = null;
+        final DocumentDiskCache diskCache = useDiskCache() ? RichCacheManager.getCache().getDiskCache() : null;
+        if (diskCache != null && key != null) {
+            RichDocument document = diskCache.get(key);
+            if (document != null) {
+                spanned = SpanCodec.decode(document, richText.getImageGetter(), richText.getClickableSpanFactory(), textView);
+            }
+        }
+        if (spanned == null && text != null && usePrefetched() && richText.getParser() instanceof RichHtmlParser && RichCacheManager.getCache().hasDocuments()) {
+            // 预取过的文本直接使用解析结果，只需要生成span
+            RichDocument document = RichCacheManager.getCache().getDocument(RichCacheManager.generateDocumentKey(text));
+            if (document != null) {
+                spanned = ((RichHtmlParser) richText.getParser()).parse(document, richText.getImageGetter());
+            }
+        }
+        if (spanned == null) {
+            try {
+                spanned = parse(text);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+            if (diskCache != null) {
+                final RichDocument document = SpanCodec.encode(spanned);
+                final String documentKey = richText.getCacheKey();
+                if (document != null) {
+                    richText.getExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            diskCache.put(documentKey, document);
+                        }
+                    });
+                }
+            }
+        }
+        SpannableStringBuilder spannableStringBuilder;
+        if (spanned instanceof SpannableStringBuilder) {
+            spannableStringBuilder = (SpannableStringBuilder) spanned;
+        } else {
+            spannableStringBuilder = new SpannableStringBuilder(spanned);
+        }
+        if (richText.isClickable() && richText.getType() == RichType.MARKDOWN) {
+            richText.applyMarkdownClicks(spannableStringBuilder);
+        }
+        return spannableStringBuilder;
+    }
+
+    /**
+     * 解析源文本，没有可以使用的缓存时调用
+     *
+     * @param text 源文本
+     * @return Spanned
+     * @throws IOException 从文件和流中读取失败
+     */
+    Spanned parse(String text) throws IOException {
+        return richText.getParser().parse(text, richText.getImageGetter());
+    }
+
+    /**
+     * 是否读写磁盘缓存，同步模式在主线程中解析，不读写磁盘缓存；render在调用方的线程中读取
+     *
+     * @return true:使用磁盘缓存
+     */
+    boolean useDiskCache() {
+        return richText.isAsync() || richText.isHeadless();
+    }
+
+    /**
+     * 是否使用预取的解析结果
+     *
+     * @return true:使用预取的结果
+     */
+    boolean usePrefetched() {
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.zzhoujay.richtext;
+
+import android.text.Spanned;
+
+import com.zzhoujay.richtext.parser.ExcerptParser;
+
+/**
+ * 摘要模式，只解析开头的一部分，预取的是全文的解析结果，不能使用
+ */
+class ExcerptRenderer extends DocumentRenderer {
+
+    ExcerptRenderer(RichText richText) {
+        super(richText);
+    }
+
+    @Override
+    Spanned parse(String text) {
+        return ExcerptParser.parse(richText.getParser(), text, richText.getExcerpt(), richText.getImageGetter());
+    }
+
+    @Override
+    boolean usePrefetched() {
+        return false;
+    }
+}
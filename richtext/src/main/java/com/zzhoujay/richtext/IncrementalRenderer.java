@@ -0,0 +1,140 @@
+package com.zzhoujay.richtext;
+
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.ImageSpan;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.parser.BlockDiff;
+import com.zzhoujay.richtext.parser.HtmlBlocks;
+import com.zzhoujay.richtext.parser.HtmlConverter;
+import com.zzhoujay.richtext.parser.MarkdownBlocks;
+import com.zzhoujay.richtext.parser.RichHtmlParser;
+
+/**
+ * 按块显示，TextView上一次按块显示的内容还在时只重新解析变化的块，没有变化的块连同图片直接复用，在主线程中解析
+ */
+class IncrementalRenderer extends Renderer {
+
+    private static final String TAG_BLOCKS = "rich_blocks";
+
+    IncrementalRenderer(RichText richText) {
+        super(richText);
+    }
+
+    @Override
+    void into(final TextView textView) {
+        post(textView, new Runnable() {
+            @Override
+            public void run() {
+                render(textView);
+            }
+        });
+    }
+
+    /**
+     * 在主线程中调用
+     *
+     * @param textView textView
+     */
+    private void render(TextView textView) {
+        String source = richText.getSourceText();
+        int type = richText.getType();
+        boolean clickable = richText.isClickable();
+        richText.setState(RichState.loading);
+        int[] ends = type == RichType.MARKDOWN ? MarkdownBlocks.split(source) : HtmlBlocks.split(source, 0, 0);
+        int[] textEnds = new int[ends.length];
+        Object tag = textView.getTag(TAG_BLOCKS.hashCode());
+        RenderedBlocks previous = tag instanceof RenderedBlocks ? (RenderedBlocks) tag : null;
+        // 重新布局时TextView会复制文本，按标记而不是对象识别上一次显示的内容
+        Editable text = previous == null ? null : previous.match(textView.getText(), type, clickable);
+        if (text == null) {
+            // 没有可以复用的内容，全部解析
+            richText.resetImages(type != RichType.MARKDOWN ? source : null, 0);
+            richText.prepareTargets(textView);
+            richText.beginParse();
+            SpannableStringBuilder ssb = new SpannableStringBuilder();
+            renderBlocks(ends, 0, ends.length, 0, "", ssb, textEnds, null, null);
+            textView.setText(ssb, TextView.BufferType.EDITABLE);
+            textView.setTag(TAG_BLOCKS.hashCode(), new RenderedBlocks(type, clickable, source, ends, textEnds, (Editable) textView.getText()));
+            richText.loadImages(textView, richText.takePendingImages());
+            return;
+        }
+        int prefix = BlockDiff.commonPrefix(previous.source, previous.sourceEnds, source, ends);
+        int suffix = BlockDiff.commonSuffix(previous.source, previous.sourceEnds, source, ends, prefix);
+        int shift = previous.sourceEnds.length - ends.length;
+        // 继续使用TextView上的图片，变化的块中新的图片加入同一个集合
+        richText.reuseTargets(textView);
+        int start = BlockDiff.start(previous.textEnds, prefix);
+        int position = start == 0 ? 0 : text.getSpans(0, start, ImageSpan.class).length;
+        richText.resetImages(type != RichType.MARKDOWN ? source.substring(BlockDiff.start(ends, prefix)) : null, position);
+        System.arraycopy(previous.textEnds, 0, textEnds, 0, prefix);
+        richText.beginParse();
+        SpannableStringBuilder changed = new SpannableStringBuilder();
+        String context = type == RichType.MARKDOWN ? "" : HtmlConverter.contextBefore(text, start);
+        int reuse = renderBlocks(ends, prefix, ends.length - suffix, start, context, changed, textEnds, previous, text);
+        int end = BlockDiff.start(previous.textEnds, reuse + shift);
+        int delta = changed.length() - (end - start);
+        for (int i = reuse; i < ends.length; i++) {
+            textEnds[i] = previous.textEnds[i + shift] + delta;
+        }
+        richText.releaseImages(text, start, end);
+        previous.release(text);
+        text.replace(start, end, changed);
+        if (clickable) {
+            richText.renumberImageClicks(text);
+        }
+        textView.setTag(TAG_BLOCKS.hashCode(), new RenderedBlocks(type, clickable, source, ends, textEnds, text));
+        richText.loadImages(textView, richText.takePendingImages());
+    }
+
+    /**
+     * 依次解析源文本中的块，结果追加到out中
+     * Html的转换依赖前文的结尾，复用的块在修改前后的前文结尾不同时也一起重新解析
+     *
+     * @param ends     每一块在源文本中的结束位置
+     * @param from     第一个要解析的块
+     * @param to       第一个可以复用的块，全部解析时为ends.length
+     * @param base     解析结果在显示的文本中的开始位置
+     * @param context  前文的结尾
+     * @param out      解析结果
+     * @param textEnds 记录每一块在显示的文本中的结束位置
+     * @param previous 上一次显示的内容，全部解析时为null
+     * @param shown    上一次显示的文本，全部解析时为null
+     * @return 实际复用的第一个块
+     */
+    private int renderBlocks(int[] ends, int from, int to, int base, String context, SpannableStringBuilder out, int[] textEnds, RenderedBlocks previous, Spanned shown) {
+        String source = richText.getSourceText();
+        if (richText.getType() == RichType.MARKDOWN) {
+            for (int i = from; i < to; i++) {
+                out.append(richText.parseMarkdown(source.substring(BlockDiff.start(ends, i), ends[i])));
+                textEnds[i] = base + out.length();
+            }
+            return to;
+        }
+        // Chunk中的位置从context开始计算，解析完成后再去掉context
+        out.append(context);
+        int offset = base - context.length();
+        RichHtmlParser.Session session = ((RichHtmlParser) richText.getParser()).newSession(richText.getImageGetter(), context);
+        int shift = previous == null ? 0 : previous.sourceEnds.length - ends.length;
+        int i = from;
+        while (i < ends.length) {
+            if (i >= to) {
+                String expected = HtmlConverter.contextBefore(shown, BlockDiff.start(previous.textEnds, i + shift));
+                if (expected.equals(HtmlConverter.contextBefore(out, out.length()))) {
+                    break;
+                }
+            }
+            session.feed(source.substring(BlockDiff.start(ends, i), ends[i])).applyTo(out);
+            textEnds[i] = offset + out.length();
+            i++;
+        }
+        if (i == ends.length && i > from) {
+            session.finish().applyTo(out);
+            textEnds[i - 1] = offset + out.length();
+        }
+        out.delete(0, context.length());
+        return i;
+    }
+}
@@ -0,0 +1,25 @@
+package com.zzhoujay.richtext;
+
+import android.text.Spanned;
+
+import com.zzhoujay.richtext.parser.ParallelParser;
+
+import java.io.IOException;
+
+/**
+ * 长文本分段并行解析，源文本超过{@link RichText#parallel(int)}设置的长度时开启
+ */
+class ParallelRenderer extends DocumentRenderer {
+
+    ParallelRenderer(RichText richText) {
+        super(richText);
+    }
+
+    @Override
+    Spanned parse(String text) throws IOException {
+        if (text.length() >= richText.getParallelThreshold()) {
+            return ParallelParser.parse(richText.getParser(), text, richText.getImageGetter());
+        }
+        return super.parse(text);
+    }
+}
@@ -0,0 +1,84 @@
+package com.zzhoujay.richtext;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 预取的配置，限制一次预取占用的CPU和网络
+ */
+public class PrefetchConfig {
+
+    public static final int DEFAULT_MAX_CHARS = 512 * 1024;
+    public static final int DEFAULT_MAX_IMAGES = 8;
+    public static final int DEFAULT_IMAGE_TIMEOUT = 10 * 1000;
+
+    private int maxChars;
+    private int maxImages;
+    private int imageTimeout;
+    private Executor executor;
+
+    public PrefetchConfig() {
+        this.maxChars = DEFAULT_MAX_CHARS;
+        this.maxImages = DEFAULT_MAX_IMAGES;
+        this.imageTimeout = DEFAULT_IMAGE_TIMEOUT;
+    }
+
+    /**
+     * 一次预取最多解析的源文本字符数，超出后剩下的文本不再解析
+     *
+     * @param maxChars 默认{@link #DEFAULT_MAX_CHARS}
+     * @return PrefetchConfig
+     */
+    public PrefetchConfig maxChars(int maxChars) {
+        this.maxChars = maxChars;
+        return this;
+    }
+
+    /**
+     * 一次预取最多下载的图片数量，为0时不下载图片
+     *
+     * @param maxImages 默认{@link #DEFAULT_MAX_IMAGES}
+     * @return PrefetchConfig
+     */
+    public PrefetchConfig maxImages(int maxImages) {
+        this.maxImages = maxImages;
+        return this;
+    }
+
+    /**
+     * 单张图片下载的超时时间
+     *
+     * @param imageTimeout 毫秒，默认{@link #DEFAULT_IMAGE_TIMEOUT}
+     * @return PrefetchConfig
+     */
+    public PrefetchConfig imageTimeout(int imageTimeout) {
+        this.imageTimeout = imageTimeout;
+        return this;
+    }
+
+    /**
+     * 预取使用的线程池，不设置时使用{@link com.zzhoujay.richtext.ext.ParseExecutor#getPrefetch()}
+     *
+     * @param executor 线程池
+     * @return PrefetchConfig
+     */
+    public PrefetchConfig executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public int getMaxChars() {
+        return maxChars;
+    }
+
+    public int getMaxImages() {
+        return maxImages;
+    }
+
+    public int getImageTimeout() {
+        return imageTimeout;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+}
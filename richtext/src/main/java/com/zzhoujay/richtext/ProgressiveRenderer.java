@@ -0,0 +1,117 @@
+package com.zzhoujay.richtext;
+
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.cache.RichCacheManager;
+import com.zzhoujay.richtext.parser.HtmlBlocks;
+import com.zzhoujay.richtext.parser.RichHtmlParser;
+
+import java.util.List;
+
+/**
+ * 分段显示，在顶层的块之间切分Html，第一段解析完成后立即显示，之后的每一段解析完成后追加到TextView中
+ */
+class ProgressiveRenderer extends Renderer {
+
+    // 分段显示时第一段和之后每一段的最小长度
+    private static final int FIRST_CHUNK_SIZE = 4 * 1024;
+    private static final int CHUNK_SIZE = 32 * 1024;
+
+    ProgressiveRenderer(RichText richText) {
+        super(richText);
+    }
+
+    @Override
+    void into(TextView textView) {
+        richText.setProgressing(true);
+        richText.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                generate();
+            }
+        });
+    }
+
+    /**
+     * 在后台线程中逐段解析
+     */
+    private void generate() {
+        TextView textView = richText.getTextView();
+        if (textView == null || richText.isStale(textView)) {
+            return;
+        }
+        CharSequence cached = RichCacheManager.getCache().get(richText.getCacheKey());
+        if (cached != null) {
+            postChunk(cached, null, null, true, true);
+            return;
+        }
+        String source = richText.getSourceText();
+        richText.setState(RichState.loading);
+        richText.resetImages(source, 0);
+        RichHtmlParser.Session session = ((RichHtmlParser) richText.getParser()).newSession(richText.getImageGetter());
+        int[] ends = HtmlBlocks.split(source, FIRST_CHUNK_SIZE, CHUNK_SIZE);
+        int start = 0;
+        for (int i = 0; i < ends.length; i++) {
+            richText.beginParse();
+            RichHtmlParser.Chunk chunk = session.feed(source.substring(start, ends[i]));
+            start = ends[i];
+            if (i < ends.length - 1) {
+                postChunk(null, chunk, richText.takePendingImages(), i == 0, false);
+            } else {
+                List<RichText.PendingImage> images = richText.takePendingImages();
+                richText.beginParse();
+                RichHtmlParser.Chunk rest = session.finish();
+                if (rest.isEmpty()) {
+                    postChunk(null, chunk, images, i == 0, true);
+                } else {
+                    postChunk(null, chunk, images, i == 0, false);
+                    postChunk(null, rest, richText.takePendingImages(), false, true);
+                }
+            }
+            textView = richText.getTextView();
+            if (textView == null || richText.isStale(textView)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在主线程中显示一段解析结果
+     *
+     * @param text   完整的文本，不为null时直接显示
+     * @param chunk  分段解析的结果
+     * @param images 这一段中的图片
+     * @param first  是否是第一段
+     * @param last   是否是最后一段
+     */
+    private void postChunk(final CharSequence text, final RichHtmlParser.Chunk chunk, final List<RichText.PendingImage> images, final boolean first, final boolean last) {
+        final TextView textView = richText.getTextView();
+        if (textView == null) {
+            return;
+        }
+        post(textView, new Runnable() {
+            @Override
+            public void run() {
+                if (text != null) {
+                    textView.setText(text);
+                } else if (first) {
+                    // 之后的段直接追加到TextView的文本中，避免每次复制整个文本
+                    richText.prepareTargets(textView);
+                    SpannableStringBuilder ssb = new SpannableStringBuilder();
+                    chunk.applyTo(ssb);
+                    textView.setText(ssb, TextView.BufferType.EDITABLE);
+                } else if (textView.getText() instanceof Editable) {
+                    chunk.applyTo((Editable) textView.getText());
+                }
+                if (images != null) {
+                    richText.loadImages(textView, images);
+                }
+                if (last) {
+                    richText.setProgressing(false);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.zzhoujay.richtext;
+
+import android.text.Editable;
+import android.text.Spannable;
+import android.text.Spanned;
+
+/**
+ * 按块显示的富文本，保存在TextView的tag中
+ * 记录源文本和每一块在源文本、显示的文本中的结束位置，修改后只重新解析变化的块
+ * 显示的文本上设置了一个覆盖全文的标记span，TextView重新setText复制文本时标记会一起复制，用它来识别显示的还是不是这次的结果
+ */
+final class RenderedBlocks {
+
+    final int type;
+    final boolean clickable;
+    final String source;
+    final int[] sourceEnds;
+    final int[] textEnds;
+    private final Object marker;
+
+    RenderedBlocks(int type, boolean clickable, String source, int[] sourceEnds, int[] textEnds, Spannable text) {
+        this.type = type;
+        this.clickable = clickable;
+        this.source = source;
+        this.sourceEnds = sourceEnds;
+        this.textEnds = textEnds;
+        this.marker = new Object();
+        text.setSpan(marker, 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+    }
+
+    /**
+     * TextView显示的还是这次的结果，并且解析方式相同
+     *
+     * @param current   TextView当前的文本
+     * @param type      数据源类型
+     * @param clickable 是否生成了点击span
+     * @return 可以复用时返回当前显示的文本，否则返回null
+     */
+    Editable match(CharSequence current, int type, boolean clickable) {
+        if (!(current instanceof Editable) || this.type != type || this.clickable != clickable) {
+            return null;
+        }
+        Editable text = (Editable) current;
+        int length = textEnds[textEnds.length - 1];
+        if (text.length() != length || text.getSpanStart(marker) != 0 || text.getSpanEnd(marker) != length) {
+            return null;
+        }
+        return text;
+    }
+
+    /**
+     * 移除文本上的标记，文本被修改后由新的RenderedBlocks标记
+     *
+     * @param text 显示的文本
+     */
+    void release(Spannable text) {
+        text.removeSpan(marker);
+    }
+}
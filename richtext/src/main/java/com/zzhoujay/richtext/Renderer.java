@@ -0,0 +1,40 @@
+package com.zzhoujay.richtext;
+
+import android.widget.TextView;
+
+/**
+ * 一种显示方式，由{@link RichText#into(TextView)}根据配置选择
+ * 配置、图片的加载和缓存的key由RichText管理，这里只负责解析和显示的流程
+ */
+abstract class Renderer {
+
+    final RichText richText;
+
+    Renderer(RichText richText) {
+        this.richText = richText;
+    }
+
+    /**
+     * 开始显示，在into中调用
+     *
+     * @param textView textView
+     */
+    abstract void into(TextView textView);
+
+    /**
+     * 在主线程中执行，TextView已经被其它RichText重新绑定时不再执行
+     *
+     * @param textView textView
+     * @param action   要执行的操作
+     */
+    void post(final TextView textView, final Runnable action) {
+        textView.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!richText.isStale(textView)) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
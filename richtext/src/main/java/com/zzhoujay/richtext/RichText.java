@@ -1,18 +1,22 @@
 package com.zzhoujay.richtext;
 
+import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.DrawableRes;
-import android.support.annotation.Nullable;
+import android.text.Editable;
 import android.text.Html;
 import android.text.SpannableStringBuilder;
 import android.text.Spanned;
-import android.text.TextUtils;
+import android.text.TextPaint;
 import android.text.method.LinkMovementMethod;
 import android.text.style.ClickableSpan;
 import android.text.style.ImageSpan;
 import android.text.style.URLSpan;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
 import android.view.View;
 import android.widget.TextView;
 
@@ -21,6 +25,15 @@ import com.bumptech.glide.DrawableTypeRequest;
 import com.bumptech.glide.GenericRequestBuilder;
 import com.bumptech.glide.GifTypeRequest;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.resource.bitmap.StreamBitmapDecoder;
+import com.bumptech.glide.load.resource.file.FileToStreamDecoder;
+import com.bumptech.glide.load.resource.gif.GifDrawable;
+import com.bumptech.glide.request.target.Target;
+import com.zzhoujay.richtext.cache.DocumentDiskCache;
+import com.zzhoujay.richtext.cache.ImageSizeCache;
 import com.zzhoujay.richtext.cache.RichCacheManager;
 import com.zzhoujay.richtext.callback.ImageFixCallback;
 import com.zzhoujay.richtext.callback.OnImageClickListener;
@@ -28,27 +41,46 @@ import com.zzhoujay.richtext.callback.OnImageLongClickListener;
 import com.zzhoujay.richtext.callback.OnURLClickListener;
 import com.zzhoujay.richtext.callback.OnUrlLongClickListener;
 import com.zzhoujay.richtext.drawable.URLDrawable;
-import com.zzhoujay.richtext.ext.Base64;
-import com.zzhoujay.richtext.ext.HtmlTagHandler;
+import com.zzhoujay.richtext.ext.DataUri;
+import com.zzhoujay.richtext.ext.DataUriModelLoader;
+import com.zzhoujay.richtext.ext.FitWidthDownsampler;
+import com.zzhoujay.richtext.ext.GifScheduler;
+import com.zzhoujay.richtext.ext.ImageScanner;
 import com.zzhoujay.richtext.ext.LongClickableLinkMovementMethod;
-import com.zzhoujay.richtext.parser.Html2SpannedParser;
+import com.zzhoujay.richtext.ext.ParseExecutor;
+import com.zzhoujay.richtext.ext.Prefetcher;
+import com.zzhoujay.richtext.ext.TextSource;
+import com.zzhoujay.richtext.ext.WidthBucket;
 import com.zzhoujay.richtext.parser.Markdown2SpannedParser;
+import com.zzhoujay.richtext.parser.RichHtmlParser;
 import com.zzhoujay.richtext.parser.SpannedParser;
+import com.zzhoujay.richtext.spans.ClickableSpanFactory;
+import com.zzhoujay.richtext.spans.ImageClickSpan;
+import com.zzhoujay.richtext.spans.ImageUrlTable;
 import com.zzhoujay.richtext.spans.LongCallableURLSpan;
 import com.zzhoujay.richtext.spans.LongClickableSpan;
 import com.zzhoujay.richtext.target.ImageLoadNotify;
 import com.zzhoujay.richtext.target.ImageTarget;
 import com.zzhoujay.richtext.target.ImageTargetBitmap;
 import com.zzhoujay.richtext.target.ImageTargetGif;
+import com.zzhoujay.richtext.target.SharedImageTarget;
 
+import java.io.File;
+import java.io.InputStream;
+import java.io.Reader;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
 
 /**
  * Created by zhou on 16-5-28.
@@ -58,11 +90,10 @@ import java.util.regex.Pattern;
 public class RichText implements ImageLoadNotify {
 
     private static final String TAG_TARGET = "target";
-
-    private static Pattern IMAGE_TAG_PATTERN = Pattern.compile("<img(.*?)>");
-    private static Pattern IMAGE_WIDTH_PATTERN = Pattern.compile("width=\"(.*?)\"");
-    private static Pattern IMAGE_HEIGHT_PATTERN = Pattern.compile("height=\"(.*?)\"");
-    private static Pattern IMAGE_SRC_PATTERN = Pattern.compile("src=\"(.*?)\"");
+    private static final String TAG_RICH_TEXT = "rich_text";
+    private static final String DOCUMENT_CACHE_DIR = "_rt_document";
+    private static final long DEFAULT_DISK_CACHE_SIZE = 10 * 1024 * 1024;
+    private static final String IMAGE_SIZE_CACHE_FILE = "_rt_image_size";
 
     private Drawable placeHolder, errorImage;//占位图，错误图
     @DrawableRes
@@ -72,24 +103,49 @@ public class RichText implements ImageLoadNotify {
     private OnUrlLongClickListener onUrlLongClickListener; // 链接长按回调
     private OnURLClickListener onURLClickListener;//超链接点击回调
     private SoftReference<HashSet<ImageTarget>> targets;
-    private HashMap<String, ImageHolder> mImages;
+    private HashMap<String, LinkedList<ImageHolder>> mImages;
+    private int imagePosition;
     private ImageFixCallback mImageFixCallback;
 
+    // 图片的计数只在主线程中修改
     private int prepareCount;
     private int loadedCount;
     @RichState
-    private int state;
+    private volatile int state;
 
     private boolean autoFix;
     private boolean noImage;
+    private boolean async;
+    private boolean progressive;
+    // 分段显示还没有全部完成，这时不缓存显示的内容
+    private boolean progressing;
+    private boolean streaming;
+    private boolean incremental;
+    // 超过这个长度时分段并行解析，0表示不开启
+    private int parallelThreshold;
+    // 摘要模式的配置，为null时解析全文
+    private ExcerptConfig excerpt;
+    private int maxPlayingGif;
+    private Executor executor;
     private int clickable;
     private final String sourceText;
-    private CharSequence richText;
+    // 从文件或流中读取的源文本，这时sourceText为null
+    private TextSource textSource;
+    private String cacheKey;
+    private volatile CharSequence richText;
     @RichType
     private int type;
     private SpannedParser spannedParser;
 
     private WeakReference<TextView> textViewWeakReference;
+    // render生成的结果和等待加载的图片
+    private Spanned rendered;
+    private List<PendingImage> renderedImages;
+    private boolean headless;
+    // 解析过程中生成的图片，在解析所在的线程中收集，显示时交给主线程加载
+    private List<PendingImage> pendingImages;
+    // into选择的显示方式
+    private Renderer renderer;
 
 
     private RichText(boolean autoFix, String sourceText, Drawable placeHolder, Drawable errorImage, @RichType int type) {
@@ -100,6 +156,8 @@ public class RichText implements ImageLoadNotify {
         this.type = type;
         this.clickable = 0;
         this.noImage = false;
+        this.async = false;
+        this.maxPlayingGif = GifScheduler.DEFAULT_MAX_PLAYING;
         this.state = RichState.ready;
     }
 
@@ -115,29 +173,285 @@ public class RichText implements ImageLoadNotify {
      */
     public void into(final TextView textView) {
         this.textViewWeakReference = new WeakReference<>(textView);
-        if (type == RichType.MARKDOWN) {
-            spannedParser = new Markdown2SpannedParser(textView);
+        prepareParser(textView);
+        if (clickable > 0) {
+            textView.setMovementMethod(new LongClickableLinkMovementMethod());
+        } else if (clickable == 0) {
+            textView.setMovementMethod(LinkMovementMethod.getInstance());
+        }
+        GifScheduler.from(textView).setMaxPlaying(maxPlayingGif);
+        // 标记TextView当前绑定的RichText，用于丢弃过期的解析结果
+        textView.setTag(TAG_RICH_TEXT.hashCode(), this);
+        // 图片的点击span在点击时从tag中取回调
+        textView.setTag(ImageClickSpan.TAG_IMAGE_CLICK.hashCode(), onImageClickListener);
+        textView.setTag(ImageClickSpan.TAG_IMAGE_LONG_CLICK.hashCode(), onImageLongClickListener);
+        if (rendered != null) {
+            attachRendered(textView);
+            return;
+        }
+        renderer = createRenderer();
+        renderer.into(textView);
+    }
+
+    /**
+     * 根据配置选择显示方式
+     *
+     * @return Renderer
+     */
+    private Renderer createRenderer() {
+        if (textSource == null) {
+            if (streaming) {
+                return new StreamingRenderer(this);
+            } else if (incremental) {
+                return new IncrementalRenderer(this);
+            } else if (progressive && excerpt == null && spannedParser instanceof RichHtmlParser) {
+                return new ProgressiveRenderer(this);
+            }
+        }
+        return createDocumentRenderer();
+    }
+
+    /**
+     * 整篇解析的显示方式，render也使用这种方式
+     *
+     * @return DocumentRenderer
+     */
+    private DocumentRenderer createDocumentRenderer() {
+        DocumentRenderer document;
+        if (excerpt != null) {
+            document = new ExcerptRenderer(this);
+        } else if (parallelThreshold > 0) {
+            document = new ParallelRenderer(this);
         } else {
-            spannedParser = new Html2SpannedParser(new HtmlTagHandler(textView));
+            document = new DocumentRenderer(this);
+        }
+        // 文件和流总是在后台线程中读取和解析
+        return textSource == null ? document : new SourceRenderer(this, document);
+    }
+
+    /**
+     * 在已经显示的内容之后追加文本，只解析新增的部分，之前的span和图片不受影响
+     * 需要先开启{@link #streaming(boolean)}并调用{@link #into(TextView)}，在主线程中调用
+     * Html中没有结束的标签在结束后才会生效；Markdown最后一个没有结束的块每次都会重新解析
+     *
+     * @param delta 新增的文本
+     */
+    public void append(final String delta) {
+        if (!streaming || delta == null || delta.length() == 0) {
+            return;
+        }
+        if (renderer instanceof StreamingRenderer) {
+            ((StreamingRenderer) renderer).append(delta);
+        }
+    }
+
+    /**
+     * 结束追加，Html中没有结束的标签在这里结束
+     */
+    public void endStream() {
+        if (renderer instanceof StreamingRenderer) {
+            ((StreamingRenderer) renderer).endStream();
+        }
+    }
+
+    /**
+     * 解析一段Markdown并替换点击事件
+     *
+     * @param markdown Markdown源文本
+     * @return Spanned
+     */
+    Spanned parseMarkdown(String markdown) {
+        Spanned spanned = spannedParser.parse(markdown, asyncImageGetter);
+        if (clickable > 0) {
+            SpannableStringBuilder ssb = spanned instanceof SpannableStringBuilder ? (SpannableStringBuilder) spanned : new SpannableStringBuilder(spanned);
+            applyMarkdownClicks(ssb);
+            return ssb;
+        }
+        return spanned;
+    }
+
+    /**
+     * 回收显示的文本中[start, end)范围内图片的ImageTarget
+     *
+     * @param text  显示的文本
+     * @param start 开始位置
+     * @param end   结束位置
+     */
+    void releaseImages(Spanned text, int start, int end) {
+        HashSet<ImageTarget> ts = targets.get();
+        if (ts == null || ts.isEmpty()) {
+            return;
+        }
+        ImageSpan[] imageSpans = text.getSpans(start, end, ImageSpan.class);
+        for (ImageSpan imageSpan : imageSpans) {
+            if (text.getSpanStart(imageSpan) < start || text.getSpanEnd(imageSpan) > end) {
+                continue;
+            }
+            Drawable drawable = imageSpan.getDrawable();
+            Iterator<ImageTarget> iterator = ts.iterator();
+            while (iterator.hasNext()) {
+                ImageTarget target = iterator.next();
+                if (target.isTargetOf(drawable)) {
+                    target.recycle();
+                    iterator.remove();
+                }
+            }
         }
+    }
+
+    /**
+     * 复用的块中图片的序号和地址表来自之前的RichText，按位置重新编号
+     *
+     * @param text 显示的文本
+     */
+    void renumberImageClicks(final Editable text) {
+        ImageClickSpan[] spans = text.getSpans(0, text.length(), ImageClickSpan.class);
+        Arrays.sort(spans, new Comparator<ImageClickSpan>() {
+            @Override
+            public int compare(ImageClickSpan a, ImageClickSpan b) {
+                return text.getSpanStart(a) - text.getSpanStart(b);
+            }
+        });
+        // 变化的块中新生成的span也从地址表中读取，先发布本次解析收集的地址
+        imageUrlTable.publish(imageUrls);
+        imageUrls = new ArrayList<>(spans.length);
+        imageUrlTable = new ImageUrlTable();
+        for (int i = 0; i < spans.length; i++) {
+            ImageClickSpan span = spans[i];
+            imageUrls.add(span.getImageUrls().get(span.getIndex()));
+            int start = text.getSpanStart(span);
+            int end = text.getSpanEnd(span);
+            text.removeSpan(span);
+            text.setSpan(new ImageClickSpan(i, imageUrlTable), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    /**
+     * 不依赖显示中的TextView生成富文本，可以在后台线程或者TextView创建之前调用
+     * 图片只根据缓存的尺寸或者ImageHolder确定占位的大小，不会发起加载；之后调用{@link #into(TextView)}时复用这里的结果并开始加载图片
+     *
+     * @param context context
+     * @param width   排版的宽度（像素）
+     * @param paint   排版使用的字体大小、字体和density
+     * @return Spanned，文本为空时返回null
+     */
+    public Spanned render(Context context, int width, TextPaint paint) {
+        // 只用于测量的TextView，不会被添加到界面上
+        TextView textView = new TextView(context);
+        textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, paint.getTextSize());
+        textView.setTypeface(paint.getTypeface());
+        textView.getPaint().density = paint.density;
+        textView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        textView.layout(0, 0, width, textView.getMeasuredHeight());
+
+        this.textViewWeakReference = new WeakReference<>(textView);
+        prepareParser(textView);
+        headless = true;
+        CharSequence cs;
+        try {
+            cs = createDocumentRenderer().generate(sourceText);
+        } finally {
+            headless = false;
+        }
+        List<PendingImage> images = takePendingImages();
+        if (cs == null) {
+            return null;
+        }
+        Spanned spanned = cs instanceof Spanned ? (Spanned) cs : new SpannableStringBuilder(cs);
+        rendered = spanned;
+        renderedImages = images;
+        return spanned;
+    }
+
+    /**
+     * 根据数据源类型创建解析器
+     *
+     * @param textView textView
+     */
+    private void prepareParser(TextView textView) {
         if (clickable == 0) {
             if (onImageLongClickListener != null || onUrlLongClickListener != null || onImageClickListener != null || onURLClickListener != null) {
                 clickable = 1;
             }
         }
-        if (clickable > 0) {
-            textView.setMovementMethod(new LongClickableLinkMovementMethod());
-        } else if (clickable == 0) {
-            textView.setMovementMethod(LinkMovementMethod.getInstance());
+        if (type == RichType.MARKDOWN) {
+            spannedParser = new Markdown2SpannedParser(textView);
+        } else {
+            spannedParser = new RichHtmlParser(textView, clickable > 0 ? clickableSpanFactory : null);
         }
+    }
+
+    /**
+     * 设置{@link #render(Context, int, TextPaint)}的结果并加载其中的图片
+     *
+     * @param textView textView
+     */
+    private void attachRendered(final TextView textView) {
+        final CharSequence cs = rendered;
+        final List<PendingImage> images = renderedImages;
+        rendered = null;
+        renderedImages = null;
         textView.post(new Runnable() {
             @Override
             public void run() {
-                textView.setText(generateRichText(sourceText));
+                if (!isStale(textView)) {
+                    setRichText(textView, cs, images);
+                }
             }
         });
     }
 
+    /**
+     * 在主线程中显示生成的富文本，然后加载其中的图片
+     *
+     * @param textView textView
+     * @param cs       富文本
+     * @param images   解析时生成的图片，为null时表示直接使用了缓存的结果，图片已经在加载
+     */
+    void setRichText(TextView textView, CharSequence cs, List<PendingImage> images) {
+        if (images != null) {
+            prepareTargets(textView);
+        }
+        textView.setText(cs);
+        if (images != null) {
+            loadImages(textView, images);
+        }
+    }
+
+    /**
+     * 开始收集解析过程中生成的图片，在解析所在的线程中调用
+     */
+    void beginParse() {
+        pendingImages = new ArrayList<>();
+    }
+
+    /**
+     * 一篇文档或者一段解析完成，取出解析过程中生成的图片，同时发布图片地址表，在解析所在的线程中调用
+     *
+     * @return 图片，没有经过解析时为null
+     */
+    List<PendingImage> takePendingImages() {
+        imageUrlTable.publish(imageUrls);
+        List<PendingImage> images = pendingImages;
+        pendingImages = null;
+        return images;
+    }
+
+    Executor getExecutor() {
+        return executor == null ? ParseExecutor.getDefault() : executor;
+    }
+
+    /**
+     * 检查TextView是否已经被其它RichText重新绑定
+     *
+     * @param textView textView
+     * @return true:结果已过期
+     */
+    boolean isStale(TextView textView) {
+        return textView.getTag(TAG_RICH_TEXT.hashCode()) != this;
+    }
+
     private void recycleTarget(HashSet<ImageTarget> ts) {
         if (ts != null) {
             for (ImageTarget it : ts) {
@@ -160,98 +474,80 @@ public class RichText implements ImageLoadNotify {
         if (ts != null) {
             recycleTarget(ts);
         }
-        if (targets == null || targets.get() == null) {
-            targets = new SoftReference<>(new HashSet<ImageTarget>());
-        }
         textView.setTag(TAG_TARGET.hashCode(), targets.get());
     }
 
     /**
-     * 生成富文本
+     * 检查TextView tag复用并创建新的ImageTarget集合，只在主线程中调用
      *
-     * @param text text
-     * @return Spanned
+     * @param textView textView
      */
-    private CharSequence generateRichText(String text) {
-        if (state == RichState.loaded && richText != null) {
-            return richText;
-        } else {
-            CharSequence cs = RichCacheManager.getCache().get(text);
-            if (cs != null) {
-                return cs;
-            }
-        }
-        state = RichState.loading;
-        if (type != RichType.MARKDOWN) {
-            matchImages(text);
-        } else {
-            mImages = new HashMap<>();
-        }
-
-        TextView textView = textViewWeakReference.get();
-        if (textView == null) {
-            return null;
-        }
+    void prepareTargets(TextView textView) {
+        targets = new SoftReference<>(new HashSet<ImageTarget>());
         checkTag(textView);
+    }
 
-        Spanned spanned = spannedParser.parse(text, asyncImageGetter);
-        SpannableStringBuilder spannableStringBuilder;
-        if (spanned instanceof SpannableStringBuilder) {
-            spannableStringBuilder = (SpannableStringBuilder) spanned;
-        } else {
-            spannableStringBuilder = new SpannableStringBuilder(spanned);
+    /**
+     * 继续使用TextView上的ImageTarget集合，新的图片加入同一个集合，只在主线程中调用
+     *
+     * @param textView textView
+     */
+    @SuppressWarnings("unchecked")
+    void reuseTargets(TextView textView) {
+        HashSet<ImageTarget> ts = (HashSet<ImageTarget>) textView.getTag(TAG_TARGET.hashCode());
+        if (ts == null) {
+            ts = new HashSet<>();
+            textView.setTag(TAG_TARGET.hashCode(), ts);
         }
-        if (clickable > 0) {
-            // 处理图片得点击事件
-            ImageSpan[] imageSpans = spannableStringBuilder.getSpans(0, spannableStringBuilder.length(), ImageSpan.class);
-            final List<String> imageUrls = new ArrayList<>();
-
-            for (int i = 0, size = imageSpans.length; i < size; i++) {
-                ImageSpan imageSpan = imageSpans[i];
-                String imageUrl = imageSpan.getSource();
-                int start = spannableStringBuilder.getSpanStart(imageSpan);
-                int end = spannableStringBuilder.getSpanEnd(imageSpan);
-                imageUrls.add(imageUrl);
-
-                final int finalI = i;
-                ClickableSpan clickableSpan = new LongClickableSpan() {
-                    @Override
-                    public void onClick(View widget) {
-                        if (onImageClickListener != null) {
-                            onImageClickListener.imageClicked(imageUrls, finalI);
-                        }
-                    }
-
-                    @Override
-                    public boolean onLongClick(View widget) {
-                        return onImageLongClickListener != null && onImageLongClickListener.imageLongClicked(imageUrls, finalI);
-                    }
-                };
-
-                ClickableSpan[] clickableSpans = spannableStringBuilder.getSpans(start, end, ClickableSpan.class);
-                if (clickableSpans != null && clickableSpans.length != 0) {
-                    for (ClickableSpan cs : clickableSpans) {
-                        spannableStringBuilder.removeSpan(cs);
-                    }
+        targets = new SoftReference<>(ts);
+    }
+
+    /**
+     * Markdown由外部库解析，只能在解析完成后替换点击事件；Html和缓存在生成时已经处理了点击事件
+     *
+     * @param spannableStringBuilder Markdown的解析结果
+     */
+    void applyMarkdownClicks(SpannableStringBuilder spannableStringBuilder) {
+        ImageSpan[] imageSpans = spannableStringBuilder.getSpans(0, spannableStringBuilder.length(), ImageSpan.class);
+        for (ImageSpan imageSpan : imageSpans) {
+            int start = spannableStringBuilder.getSpanStart(imageSpan);
+            int end = spannableStringBuilder.getSpanEnd(imageSpan);
+            ClickableSpan[] clickableSpans = spannableStringBuilder.getSpans(start, end, ClickableSpan.class);
+            if (clickableSpans != null && clickableSpans.length != 0) {
+                for (ClickableSpan cs : clickableSpans) {
+                    spannableStringBuilder.removeSpan(cs);
                 }
-                spannableStringBuilder.setSpan(clickableSpan, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
             }
+            spannableStringBuilder.setSpan(clickableSpanFactory.createImageSpan(imageSpan.getSource(), imageUrls.size()), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
 
-            // 处理超链接点击事件
-            URLSpan[] urlSpans = spannableStringBuilder.getSpans(0, spannableStringBuilder.length(), URLSpan.class);
+        URLSpan[] urlSpans = spannableStringBuilder.getSpans(0, spannableStringBuilder.length(), URLSpan.class);
+        for (int i = 0, size = urlSpans == null ? 0 : urlSpans.length; i < size; i++) {
+            URLSpan urlSpan = urlSpans[i];
+            int start = spannableStringBuilder.getSpanStart(urlSpan);
+            int end = spannableStringBuilder.getSpanEnd(urlSpan);
+            spannableStringBuilder.removeSpan(urlSpan);
+            spannableStringBuilder.setSpan(clickableSpanFactory.createUrlSpan(urlSpan.getURL()), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
 
-            for (int i = 0, size = urlSpans == null ? 0 : urlSpans.length; i < size; i++) {
-                URLSpan urlSpan = urlSpans[i];
+    // 本篇富文本中全部图片的地址，生成点击span时按顺序加入，只在解析所在的线程中修改
+    private List<String> imageUrls = new ArrayList<>();
+    // 点击span读取的地址表，解析完成时发布imageUrls的副本
+    private ImageUrlTable imageUrlTable = new ImageUrlTable();
 
-                int start = spannableStringBuilder.getSpanStart(urlSpan);
-                int end = spannableStringBuilder.getSpanEnd(urlSpan);
+    private final ClickableSpanFactory clickableSpanFactory = new ClickableSpanFactory() {
+        @Override
+        public LongClickableSpan createImageSpan(String source, int index) {
+            imageUrls.add(source);
+            return new ImageClickSpan(index, imageUrlTable);
+        }
 
-                spannableStringBuilder.removeSpan(urlSpan);
-                spannableStringBuilder.setSpan(new LongCallableURLSpan(urlSpan.getURL(), onURLClickListener, onUrlLongClickListener), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-            }
+        @Override
+        public LongCallableURLSpan createUrlSpan(String url) {
+            return new LongCallableURLSpan(url, onURLClickListener, onUrlLongClickListener);
         }
-        return spanned;
-    }
+    };
 
     private final Html.ImageGetter asyncImageGetter = new Html.ImageGetter() {
         @Override
@@ -260,149 +556,312 @@ public class RichText implements ImageLoadNotify {
                 return new ColorDrawable(Color.TRANSPARENT);
             }
             final URLDrawable urlDrawable = new URLDrawable();
-            ImageHolder imageHolder;
-            if (type == RichType.MARKDOWN) {
-                imageHolder = new ImageHolder(source, mImages.size());
-            } else {
-                imageHolder = mImages.get(source);
-                if (imageHolder == null) {
-                    imageHolder = new ImageHolder(source, 0);
-                    mImages.put(source, imageHolder);
-                }
+            // ImageGetter按图片在文档中出现的顺序调用，相同src的图片依次取出
+            ImageHolder imageHolder = null;
+            LinkedList<ImageHolder> holders = mImages.get(source);
+            if (holders != null) {
+                imageHolder = holders.poll();
             }
+            if (imageHolder == null) {
+                imageHolder = new ImageHolder(source, imagePosition);
+            }
+            imagePosition++;
             final ImageHolder holder = imageHolder;
-            final ImageTarget target;
-            final GenericRequestBuilder load;
+            ImageSizeCache.ImageSize imageSize = ImageSizeCache.getCache().get(source);
+            if (imageSize != null && imageSize.isGif()) {
+                // 没有.gif后缀的gif图片
+                holder.setImageType(ImageHolder.ImageType.GIF);
+            }
             if (!autoFix && mImageFixCallback != null) {
                 mImageFixCallback.onFix(holder, false);
                 if (!holder.isShow()) {
                     return new ColorDrawable(Color.TRANSPARENT);
                 }
             }
-            DrawableTypeRequest dtr;
-            byte[] src = Base64.decode(source);
-            TextView textView = textViewWeakReference.get();
+            // data URI只在这里计算内容哈希，解码交给Glide的后台线程
+            final DataUri dataUri = DataUri.parse(source);
+            final TextView textView = textViewWeakReference.get();
             if (textView == null) {
                 return null;
             }
-            if (src != null) {
-                dtr = Glide.with(textView.getContext()).load(src);
-            } else {
-                dtr = Glide.with(textView.getContext()).load(source);
-            }
-            if (holder.isGif()) {
-                target = new ImageTargetGif(textView, urlDrawable, holder, autoFix, mImageFixCallback, RichText.this);
-                load = dtr.asGif();
-            } else {
-                target = new ImageTargetBitmap(textView, urlDrawable, holder, autoFix, mImageFixCallback, RichText.this);
-                load = dtr.asBitmap();
-            }
-            if (targets.get() != null) {
-                targets.get().add(target);
-            }
-            if (!autoFix && mImageFixCallback != null) {
-                if (holder.getWidth() > 0 && holder.getHeight() > 0) {
-                    load.override(holder.getWidth(), holder.getHeight());
-                    if (holder.getScaleType() == ImageHolder.ScaleType.CENTER_CROP) {
-                        if (holder.isGif()) {
-                            //noinspection ConstantConditions
-                            ((GifTypeRequest) load).centerCrop();
-                        } else {
-                            //noinspection ConstantConditions
-                            ((BitmapTypeRequest) load).centerCrop();
-                        }
-                    } else if (holder.getScaleType() == ImageHolder.ScaleType.FIT_CENTER) {
-                        if (holder.isGif()) {
-                            //noinspection ConstantConditions
-                            ((GifTypeRequest) load).fitCenter();
-                        } else {
-                            //noinspection ConstantConditions
-                            ((BitmapTypeRequest) load).fitCenter();
-                        }
-                    }
+            if (imageSize != null && (autoFix || holder.isAutoFix())) {
+                // 已经知道图片的宽高比，直接设置占位的大小，避免图片加载完成后重新布局
+                int width = getRealWidth(textView);
+                if (width > 0) {
+                    urlDrawable.setBounds(0, 0, width, (int) ((float) imageSize.getHeight() * width / imageSize.getWidth()));
                 }
             }
-            textView.post(new Runnable() {
-                @Override
-                public void run() {
-                    setPlaceHolder(load);
-                    setErrorImage(load);
-                    load.into(target);
-                }
-            });
-            prepareCount++;
+            if (headless && urlDrawable.getBounds().isEmpty()) {
+                // 没有显示中的TextView，只确定占位的大小，图片在into时加载
+                presize(urlDrawable, holder, getRealWidth(textView));
+            }
+            // 解析可能在后台线程中进行，ImageTarget的创建和记录都交给显示结果的主线程
+            pendingImages.add(new PendingImage(urlDrawable, holder, dataUri));
             return urlDrawable;
         }
     };
 
     /**
-     * 从文本中拿到<img/>标签,并获取图片url和宽高
+     * 加载显示的文本中新增的图片，在主线程中调用
+     *
+     * @param textView textView
+     * @param images   解析时生成的图片
      */
-    private void matchImages(String text) {
-        mImages = new HashMap<>();
-        ImageHolder holder;
-        Matcher imageMatcher, srcMatcher, widthMatcher, heightMatcher;
-        int position = 0;
-        imageMatcher = IMAGE_TAG_PATTERN.matcher(text);
-        while (imageMatcher.find()) {
-            String image = imageMatcher.group().trim();
-            srcMatcher = IMAGE_SRC_PATTERN.matcher(image);
-            String src = null;
-            if (srcMatcher.find()) {
-                src = getTextBetweenQuotation(srcMatcher.group().trim().substring(4));
-            }
-            if (TextUtils.isEmpty(src)) {
-                continue;
-            }
-            holder = new ImageHolder(src, position);
-            if (isGif(src)) {
-                holder.setImageType(ImageHolder.ImageType.GIF);
+    void loadImages(TextView textView, List<PendingImage> images) {
+        // 先计入全部图片，命中内存缓存的请求会在into中同步回调done
+        prepareCount += images.size();
+        for (PendingImage image : images) {
+            loadImage(textView, image.urlDrawable, image.holder, image.dataUri);
+        }
+    }
+
+    /**
+     * 创建ImageTarget并发起图片请求，在主线程中调用
+     *
+     * @param textView    textView
+     * @param urlDrawable 占位的URLDrawable
+     * @param holder      ImageHolder
+     * @param dataUri     data URI图片，为null时从网络加载
+     */
+    private void loadImage(TextView textView, URLDrawable urlDrawable, ImageHolder holder, DataUri dataUri) {
+        String key = getRequestKey(textView, holder, dataUri);
+        if (holder.isGif()) {
+            ImageTargetGif target = new ImageTargetGif(textView, urlDrawable, holder, autoFix, mImageFixCallback, this);
+            SharedImageTarget<GifDrawable> shared = subscribe(key, target, holder);
+            if (shared != null) {
+                startRequest(createGifRequest(textView, holder, dataUri), shared);
             }
-            widthMatcher = IMAGE_WIDTH_PATTERN.matcher(image);
-            if (widthMatcher.find()) {
-                holder.setWidth(parseStringToInteger(getTextBetweenQuotation(widthMatcher.group().trim().substring(6))));
+        } else {
+            ImageTargetBitmap target = new ImageTargetBitmap(textView, urlDrawable, holder, autoFix, mImageFixCallback, this);
+            SharedImageTarget<Bitmap> shared = subscribe(key, target, holder);
+            if (shared != null) {
+                startRequest(createBitmapRequest(textView, holder, dataUri), shared);
             }
+        }
+    }
+
+    /**
+     * 记录ImageTarget并订阅相同图片的请求
+     *
+     * @param key    请求的key
+     * @param target ImageTarget
+     * @param holder ImageHolder
+     * @return 需要发起请求的SharedImageTarget，相同的图片正在加载时返回null
+     */
+    private <T> SharedImageTarget<T> subscribe(String key, ImageTarget<T> target, ImageHolder holder) {
+        // 指定了解码大小或者按宽度采样时，加载到的不是图片的原始尺寸
+        target.setRecordSize(!isFixedSize(holder) && !isFitWidth(holder));
+        HashSet<ImageTarget> ts = targets.get();
+        if (ts != null) {
+            ts.add(target);
+        }
+        // 相同的图片正在加载时直接订阅结果，不再发起新的请求
+        SharedImageTarget<T> shared = SharedImageTarget.get(key);
+        if (shared != null) {
+            shared.subscribe(target);
+            return null;
+        }
+        shared = SharedImageTarget.create(key);
+        shared.subscribe(target);
+        return shared;
+    }
 
-            heightMatcher = IMAGE_HEIGHT_PATTERN.matcher(image);
-            if (heightMatcher.find()) {
-                holder.setHeight(parseStringToInteger(getTextBetweenQuotation(heightMatcher.group().trim().substring(6))));
+    private <T> void startRequest(GenericRequestBuilder<?, ?, ?, T> load, SharedImageTarget<T> shared) {
+        setPlaceHolder(load);
+        setErrorImage(load);
+        load.into(shared);
+    }
+
+    /**
+     * 没有缓存的图片尺寸时，按ImageHolder或者默认的比例确定占位的大小，与ImageTarget#onLoadStarted一致
+     *
+     * @param urlDrawable URLDrawable
+     * @param holder      ImageHolder
+     * @param width       可用宽度
+     */
+    private static void presize(URLDrawable urlDrawable, ImageHolder holder, int width) {
+        if (holder.getWidth() > 0 && holder.getHeight() > 0) {
+            if (width > 0 && holder.getWidth() > width) {
+                // 超出可用宽度时等比缩小
+                urlDrawable.setBounds(0, 0, width, (int) ((float) holder.getHeight() * width / holder.getWidth()));
+            } else {
+                urlDrawable.setBounds(0, 0, holder.getWidth(), holder.getHeight());
             }
+        } else if (width > 0) {
+            urlDrawable.setBounds(0, 0, width, width / 2);
+        }
+    }
 
-            mImages.put(holder.getSrc(), holder);
-            position++;
+    /**
+     * render时生成的图片，into时再加载
+     */
+    static class PendingImage {
+
+        final URLDrawable urlDrawable;
+        final ImageHolder holder;
+        final DataUri dataUri;
+
+        PendingImage(URLDrawable urlDrawable, ImageHolder holder, DataUri dataUri) {
+            this.urlDrawable = urlDrawable;
+            this.holder = holder;
+            this.dataUri = dataUri;
+        }
+    }
+
+    /**
+     * 创建图片加载请求，gif和图片共用的部分
+     *
+     * @param textView textView
+     * @param holder   ImageHolder
+     * @param dataUri  data URI图片，为null时从网络加载
+     * @return DrawableTypeRequest
+     */
+    private DrawableTypeRequest<?> createRequest(TextView textView, ImageHolder holder, DataUri dataUri) {
+        // 请求由相同图片的ImageTarget共用，不能跟随第一个TextView所在页面的生命周期，由引用计数释放
+        Context context = textView.getContext().getApplicationContext();
+        if (dataUri != null) {
+            return Glide.with(context).using(DataUriModelLoader.getInstance()).load(dataUri);
         }
+        DrawableTypeRequest<String> dtr = Glide.with(context).load(holder.getSrc());
+        // 同时缓存原图，预取下载的图片可以直接使用
+        dtr.diskCacheStrategy(DiskCacheStrategy.ALL);
+        return dtr;
     }
 
-    private static int parseStringToInteger(String integerStr) {
-        int result = -1;
-        if (!TextUtils.isEmpty(integerStr)) {
-            try {
-                result = Integer.parseInt(integerStr);
-            } catch (Exception e) {
-                e.printStackTrace();
+    /**
+     * 创建gif的加载请求
+     *
+     * @param textView textView
+     * @param holder   ImageHolder
+     * @param dataUri  data URI图片，为null时从网络加载
+     * @return GifTypeRequest
+     */
+    private GifTypeRequest<?> createGifRequest(TextView textView, ImageHolder holder, DataUri dataUri) {
+        GifTypeRequest<?> load = createRequest(textView, holder, dataUri).asGif();
+        if (isFixedSize(holder)) {
+            load.override(holder.getWidth(), holder.getHeight());
+            if (holder.getScaleType() == ImageHolder.ScaleType.CENTER_CROP) {
+                load.centerCrop();
+            } else if (holder.getScaleType() == ImageHolder.ScaleType.FIT_CENTER) {
+                load.fitCenter();
             }
         }
-        return result;
+        return load;
     }
 
     /**
-     * 从双引号之间取出字符串
+     * 创建图片的加载请求
+     *
+     * @param textView textView
+     * @param holder   ImageHolder
+     * @param dataUri  data URI图片，为null时从网络加载
+     * @return BitmapTypeRequest
      */
-    @Nullable
-    private static String getTextBetweenQuotation(String text) {
-        Pattern pattern = Pattern.compile("\"(.*?)\"");
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            return matcher.group(1);
+    private BitmapTypeRequest<?> createBitmapRequest(TextView textView, ImageHolder holder, DataUri dataUri) {
+        BitmapTypeRequest<?> load = createRequest(textView, holder, dataUri).asBitmap();
+        if (isFixedSize(holder)) {
+            load.override(holder.getWidth(), holder.getHeight());
+            if (holder.getScaleType() == ImageHolder.ScaleType.CENTER_CROP) {
+                load.centerCrop();
+            } else if (holder.getScaleType() == ImageHolder.ScaleType.FIT_CENTER) {
+                load.fitCenter();
+            }
+        } else if (isFitWidth(holder)) {
+            // 自动适配宽度时按显示宽度采样解码，避免解码原图，显示时再由URLDrawable的大小缩放
+            int width = getDecodeWidth(textView);
+            BitmapPool pool = Glide.get(textView.getContext().getApplicationContext()).getBitmapPool();
+            // 网络图片同时缓存了原图，下载后从磁盘缓存中解码，cacheDecoder也要按宽度采样
+            load.imageDecoder(new StreamBitmapDecoder(new FitWidthDownsampler(holder.getSrc()), pool, DecodeFormat.DEFAULT))
+                    .cacheDecoder(new FileToStreamDecoder<>(new StreamBitmapDecoder(new FitWidthDownsampler(holder.getSrc(), true), pool, DecodeFormat.DEFAULT)))
+                    .override(width, Target.SIZE_ORIGINAL);
         }
-        return null;
+        return load;
     }
 
-    private static boolean isGif(String path) {
-        int index = path.lastIndexOf('.');
-        return index > 0 && "gif".toUpperCase().equals(path.substring(index + 1).toUpperCase());
+    /**
+     * 是否按ImageHolder中指定的大小解码
+     *
+     * @param holder ImageHolder
+     * @return true:指定大小
+     */
+    private boolean isFixedSize(ImageHolder holder) {
+        return !autoFix && mImageFixCallback != null && holder.getWidth() > 0 && holder.getHeight() > 0;
     }
 
+    /**
+     * 是否按显示宽度采样解码
+     *
+     * @param holder ImageHolder
+     * @return true:按显示宽度解码
+     */
+    private boolean isFitWidth(ImageHolder holder) {
+        return (autoFix || holder.isAutoFix()) && !holder.isGif();
+    }
+
+    /**
+     * 图片请求的key，src和解码参数都相同的请求可以共用一次加载
+     *
+     * @param textView textView
+     * @param holder   ImageHolder
+     * @param dataUri  data URI图片，使用内容哈希代替src
+     * @return key
+     */
+    private String getRequestKey(TextView textView, ImageHolder holder, DataUri dataUri) {
+        String src = dataUri == null ? holder.getSrc() : dataUri.getId();
+        StringBuilder key = new StringBuilder(src.length() + 24);
+        key.append(holder.isGif() ? 'g' : 'b');
+        if (isFixedSize(holder)) {
+            key.append(holder.getWidth()).append('x').append(holder.getHeight()).append('s').append(holder.getScaleType());
+        } else if (isFitWidth(holder)) {
+            key.append('w').append(getDecodeWidth(textView));
+        }
+        return key.append('|').append(src).toString();
+    }
+
+    /**
+     * 获取解码图片使用的宽度，TextView还没有测量时使用屏幕宽度
+     * 宽度会按屏幕宽度分档，使不同的布局宽度共用同一个解码结果
+     *
+     * @param textView textView
+     * @return width
+     */
+    private static int getDecodeWidth(TextView textView) {
+        DisplayMetrics metrics = textView.getResources().getDisplayMetrics();
+        int width = getRealWidth(textView);
+        if (width <= 0) {
+            width = metrics.widthPixels - textView.getPaddingLeft() - textView.getPaddingRight();
+        }
+        return WidthBucket.bucket(width, Math.max(metrics.widthPixels, metrics.heightPixels));
+    }
+
+    /**
+     * 获取TextView的可用宽度
+     *
+     * @param textView textView
+     * @return width
+     */
+    private static int getRealWidth(TextView textView) {
+        return textView.getWidth() - textView.getPaddingRight() - textView.getPaddingLeft();
+    }
+
+    /**
+     * 开始解析一篇新的文档，重置图片的序号和地址表，并从文本中拿到<img/>标签,获取图片url和宽高
+     *
+     * @param html     Html源文本，Markdown或者还没有读取的文本为null
+     * @param position 第一张图片的序号
+     * @return 图片表，ImageGetter按顺序从中取出ImageHolder
+     */
+    HashMap<String, LinkedList<ImageHolder>> resetImages(String html, int position) {
+        imagePosition = position;
+        // 每篇文档使用新的图片地址表，已经生成的span不受影响
+        imageUrls = new ArrayList<>();
+        imageUrlTable = new ImageUrlTable();
+        mImages = new HashMap<>();
+        if (html != null) {
+            ImageScanner.scan(html, mImages);
+        }
+        return mImages;
+    }
 
     /**
      * @param richText 待解析文本
@@ -426,6 +885,47 @@ public class RichText implements ImageLoadNotify {
         return r;
     }
 
+    /**
+     * 构建RichText并设置数据源为Reader中的Html，在后台线程中边读边解析，不需要把整篇文档读入内存
+     * Reader只能读取一次，解析完成后关闭
+     *
+     * @param reader 源文本
+     * @return RichText
+     */
+    public static RichText from(Reader reader) {
+        return fromSource(TextSource.of(reader));
+    }
+
+    /**
+     * 构建RichText并设置数据源为输入流中的Html
+     *
+     * @param inputStream 源文本，解析完成后关闭
+     * @param charset     编码
+     * @return RichText
+     * @see #from(Reader)
+     */
+    public static RichText from(InputStream inputStream, Charset charset) {
+        return fromSource(TextSource.of(inputStream, charset));
+    }
+
+    /**
+     * 构建RichText并设置数据源为UTF-8编码的Html文件
+     * 先读取一遍文件计算缓存的key，命中缓存时不再解析
+     *
+     * @param file 源文件
+     * @return RichText
+     * @see #from(Reader)
+     */
+    public static RichText from(File file) {
+        return fromSource(TextSource.of(file, TextSource.UTF_8));
+    }
+
+    private static RichText fromSource(TextSource textSource) {
+        RichText r = new RichText((String) null);
+        r.textSource = textSource;
+        return r;
+    }
+
     /**
      * 构建RichText并设置数据源为Markdown
      *
@@ -436,6 +936,48 @@ public class RichText implements ImageLoadNotify {
         return from(markdown).type(RichType.MARKDOWN);
     }
 
+    /**
+     * 预取即将显示的Html，在后台解析并下载图片，可以在RecyclerView的预取回调中调用
+     * 之后对相同的文本调用into时不再重新解析，图片的占位大小也已经确定
+     *
+     * @param context context
+     * @param sources Html源文本
+     * @param config  预取的配置，为null时使用默认配置
+     */
+    public static void prefetch(Context context, Collection<String> sources, PrefetchConfig config) {
+        Prefetcher.prefetch(context, sources, config == null ? new PrefetchConfig() : config);
+    }
+
+    /**
+     * 开启解析结果的磁盘缓存，使用默认的大小上限
+     *
+     * @param cacheDir 缓存目录
+     * @see #initCacheDir(File, long)
+     */
+    public static void initCacheDir(File cacheDir) {
+        initCacheDir(cacheDir, DEFAULT_DISK_CACHE_SIZE);
+    }
+
+    /**
+     * 开启解析结果的磁盘缓存，以下几种情况会读写磁盘缓存：
+     * {@link #async(boolean)}模式、{@link #render(Context, int, TextPaint)}（在调用方的线程中读取）、从文件和流中读取的文本
+     * 同步模式在主线程中解析，不使用磁盘缓存；写入总是在后台线程中进行
+     * 同时开启图片尺寸的持久化，图片再次出现时占位图直接使用最终的宽高比
+     *
+     * @param cacheDir 缓存目录
+     * @param maxSize  磁盘缓存的大小上限（字节）
+     */
+    public static void initCacheDir(File cacheDir, long maxSize) {
+        RichCacheManager.getCache().setDiskCache(new DocumentDiskCache(new File(cacheDir, DOCUMENT_CACHE_DIR), maxSize));
+        final File imageSizeFile = new File(cacheDir, IMAGE_SIZE_CACHE_FILE);
+        ParseExecutor.getDefault().execute(new Runnable() {
+            @Override
+            public void run() {
+                ImageSizeCache.getCache().init(imageSizeFile);
+            }
+        });
+    }
+
     /**
      * 回收所有图片和任务
      */
@@ -446,7 +988,7 @@ public class RichText implements ImageLoadNotify {
         if (textView != null) {
             textView.setText(null);
         }
-        RichCacheManager.getCache().clear(sourceText);
+        RichCacheManager.getCache().clear(getCacheKey());
     }
 
     /**
@@ -482,6 +1024,102 @@ public class RichText implements ImageLoadNotify {
         return this;
     }
 
+    /**
+     * 是否在后台线程中解析，开启后只有最终的setText在主线程中执行
+     *
+     * @param async 默认false
+     * @return RichText
+     */
+    public RichText async(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    /**
+     * 设置后台解析使用的线程池，不设置时使用{@link ParseExecutor#getDefault()}
+     *
+     * @param executor 线程池
+     * @return RichText
+     */
+    public RichText executor(Executor executor) {
+        this.executor = executor;
+        this.async = executor != null || async;
+        return this;
+    }
+
+    /**
+     * 分段显示，适合很长的Html：先显示第一屏的内容，其余部分在后台继续解析并逐段追加
+     * 开启后会在后台线程中解析，Markdown不支持分段
+     *
+     * @param progressive 默认false
+     * @return RichText
+     */
+    public RichText progressive(boolean progressive) {
+        this.progressive = progressive;
+        return this;
+    }
+
+    /**
+     * 追加模式，用于聊天消息等不断增加的内容，之后通过{@link #append(String)}追加文本
+     * 开启后在主线程中解析，不使用缓存
+     *
+     * @param streaming 默认false
+     * @return RichText
+     */
+    public RichText streaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    /**
+     * 按块增量显示，用于编辑后重新显示或者输入时预览
+     * TextView上一次也是按块显示时，只重新解析变化的块，没有变化的块和其中的图片直接复用
+     * 开启后在主线程中解析，不使用缓存
+     *
+     * @param incremental 默认false
+     * @return RichText
+     */
+    public RichText incremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * 长文本分段并行解析，源文本在顶层的块之间切分后在多个线程中解析，再按顺序拼接
+     * 列表序号、图片序号与整篇解析相同；只用于全新的解析，不影响分段显示、追加和增量显示
+     *
+     * @param threshold 源文本超过这个长度时开启，默认0不开启
+     * @return RichText
+     */
+    public RichText parallel(int threshold) {
+        this.parallelThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * 摘要模式，用于列表中只显示开头几行的预览
+     * 解析到限制的位置后停止，在末尾追加省略号，之后的图片不会加载
+     * 不影响分段显示、追加和增量显示
+     *
+     * @param excerpt 摘要的配置，为null时显示全文
+     * @return RichText
+     */
+    public RichText excerpt(ExcerptConfig excerpt) {
+        this.excerpt = excerpt;
+        return this;
+    }
+
+    /**
+     * 同时播放的gif数量上限，超出的gif以及不在可见区域内的gif会暂停
+     *
+     * @param maxPlayingGif 默认{@link GifScheduler#DEFAULT_MAX_PLAYING}，小于等于0时不限制
+     * @return RichText
+     */
+    public RichText maxPlayingGif(int maxPlayingGif) {
+        this.maxPlayingGif = maxPlayingGif;
+        return this;
+    }
+
     /**
      * 是否屏蔽点击，不进行此项设置只会在设置了点击回调才会响应点击事件
      *
@@ -594,7 +1232,7 @@ public class RichText implements ImageLoadNotify {
         return this;
     }
 
-    private void setPlaceHolder(GenericRequestBuilder load) {
+    private void setPlaceHolder(GenericRequestBuilder<?, ?, ?, ?> load) {
         if (placeHolderRes > 0) {
             load.placeholder(placeHolderRes);
         } else {
@@ -602,7 +1240,7 @@ public class RichText implements ImageLoadNotify {
         }
     }
 
-    private void setErrorImage(GenericRequestBuilder load) {
+    private void setErrorImage(GenericRequestBuilder<?, ?, ?, ?> load) {
         if (errorImageRes > 0) {
             load.error(errorImageRes);
         } else {
@@ -613,7 +1251,30 @@ public class RichText implements ImageLoadNotify {
     @Override
     public void done(CharSequence value) {
         loadedCount++;
-        if (loadedCount >= prepareCount) {
+        checkLoaded(value);
+    }
+
+    /**
+     * 分段显示是否还没有全部完成，这时不缓存显示的内容，在主线程中调用
+     *
+     * @param progressing true:还有没有显示的段
+     */
+    void setProgressing(boolean progressing) {
+        this.progressing = progressing;
+        if (!progressing && prepareCount > 0) {
+            // 图片可能在最后一段显示之前已经全部加载完成
+            checkLoaded(null);
+        }
+    }
+
+    /**
+     * 所有图片加载完成后缓存显示的内容
+     *
+     * @param value 显示的内容，为null时从TextView中获取
+     */
+    private void checkLoaded(CharSequence value) {
+        // 追加模式下显示的内容与源文本不对应，按块显示的内容之后还会被修改，都不缓存
+        if (loadedCount >= prepareCount && !progressing && !streaming && !incremental) {
             if (value != null) {
                 richText = value;
             } else {
@@ -624,7 +1285,125 @@ public class RichText implements ImageLoadNotify {
                 richText = textView.getText();
             }
             state = RichState.loaded;
-            RichCacheManager.getCache().put(sourceText, richText);
+            RichCacheManager.getCache().put(getCacheKey(), richText);
+        }
+    }
+
+    /**
+     * 缓存使用的key
+     *
+     * @return key
+     */
+    String getCacheKey() {
+        if (cacheKey == null && sourceText != null) {
+            cacheKey = RichCacheManager.generateKey(sourceText, getCacheConfig());
+        }
+        return cacheKey;
+    }
+
+    /**
+     * 影响解析结果的配置
+     *
+     * @return config
+     */
+    String getCacheConfig() {
+        String config = type + "_" + clickable + "_" + noImage;
+        return excerpt == null ? config : config + "_" + excerpt.getKey();
+    }
+
+    /**
+     * 设置缓存使用的key，从文件和流中读取时在读取后才能得到
+     *
+     * @param cacheKey key
+     */
+    void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    /**
+     * 已经生成并且图片全部加载完成的富文本
+     *
+     * @return 富文本，还没有完成时返回null
+     */
+    CharSequence getLoadedText() {
+        return state == RichState.loaded ? richText : null;
+    }
+
+    void setState(@RichState int state) {
+        this.state = state;
+    }
+
+    TextView getTextView() {
+        return textViewWeakReference == null ? null : textViewWeakReference.get();
+    }
+
+    String getSourceText() {
+        return sourceText;
+    }
+
+    TextSource getTextSource() {
+        return textSource;
+    }
+
+    @RichType
+    int getType() {
+        return type;
+    }
+
+    SpannedParser getParser() {
+        return spannedParser;
+    }
+
+    Html.ImageGetter getImageGetter() {
+        return asyncImageGetter;
+    }
+
+    boolean isClickable() {
+        return clickable > 0;
+    }
+
+    /**
+     * 生成点击span的工厂
+     *
+     * @return 不响应点击时为null
+     */
+    ClickableSpanFactory getClickableSpanFactory() {
+        return clickable > 0 ? clickableSpanFactory : null;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    boolean isHeadless() {
+        return headless;
+    }
+
+    ExcerptConfig getExcerpt() {
+        return excerpt;
+    }
+
+    int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 图片地址表中的数量
+     *
+     * @return 数量
+     */
+    int getImageUrlCount() {
+        return imageUrls.size();
+    }
+
+    /**
+     * 去掉图片地址表末尾的图片，重新解析的部分会再次加入
+     *
+     * @param size 保留的数量
+     */
+    void truncateImageUrls(int size) {
+        while (imageUrls.size() > size) {
+            imageUrls.remove(imageUrls.size() - 1);
         }
     }
 
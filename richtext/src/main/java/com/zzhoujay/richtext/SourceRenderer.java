@@ -0,0 +1,136 @@
+package com.zzhoujay.richtext;
+
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.cache.RichCacheManager;
+import com.zzhoujay.richtext.cache.StreamDigest;
+import com.zzhoujay.richtext.ext.ImageScanner;
+import com.zzhoujay.richtext.ext.TextSource;
+import com.zzhoujay.richtext.parser.HtmlStream;
+import com.zzhoujay.richtext.parser.RichHtmlParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * 从文件或流中读取的文本，总是在后台线程中读取和解析
+ * Html边读边解析；Markdown和摘要整篇读入后交给对应的DocumentRenderer解析
+ */
+class SourceRenderer extends DocumentRenderer {
+
+    // 从文件或流中读取时每次读取的字符数
+    private static final int SOURCE_BUFFER_SIZE = 8 * 1024;
+
+    private final TextSource textSource;
+    // 整篇读入后的解析方式
+    private final DocumentRenderer document;
+
+    SourceRenderer(RichText richText, DocumentRenderer document) {
+        super(richText);
+        this.textSource = richText.getTextSource();
+        this.document = document;
+    }
+
+    @Override
+    void into(TextView textView) {
+        generateAsync();
+    }
+
+    @Override
+    CharSequence generate(String text) {
+        CharSequence loaded = richText.getLoadedText();
+        if (loaded != null) {
+            return loaded;
+        }
+        if (text == null) {
+            try {
+                if (richText.getType() == RichType.MARKDOWN || richText.getExcerpt() != null) {
+                    // Markdown由外部库解析，摘要需要中途停止转换，都整篇读入
+                    text = textSource.read();
+                    richText.setCacheKey(RichCacheManager.generateKey(text, richText.getCacheConfig()));
+                } else if (richText.getCacheKey() == null && textSource.isRepeatable()) {
+                    // 文件先只计算key，命中缓存时不需要解析
+                    richText.setCacheKey(digestSource());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        return super.generate(text);
+    }
+
+    @Override
+    Spanned parse(String text) throws IOException {
+        return text == null ? parseSource() : document.parse(text);
+    }
+
+    @Override
+    boolean useDiskCache() {
+        return true;
+    }
+
+    @Override
+    boolean usePrefetched() {
+        return false;
+    }
+
+    /**
+     * 边读边解析Html，内存中只保留解析结果和一个缓冲区，同时计算缓存的key
+     *
+     * @return Spanned
+     * @throws IOException 读取失败
+     */
+    private Spanned parseSource() throws IOException {
+        final RichHtmlParser.Session session = ((RichHtmlParser) richText.getParser()).newSession(richText.getImageGetter());
+        final SpannableStringBuilder ssb = new SpannableStringBuilder();
+        final HashMap<String, LinkedList<ImageHolder>> images = richText.resetImages(null, 0);
+        StreamDigest digest = richText.getCacheKey() == null ? new StreamDigest() : null;
+        Reader reader = textSource.open();
+        try {
+            HtmlStream.read(reader, SOURCE_BUFFER_SIZE, digest, new HtmlStream.ChunkHandler() {
+
+                private int position;
+
+                @Override
+                public void onChunk(String html) {
+                    // ImageGetter按顺序从图片表中取出ImageHolder，需要在解析这一段之前扫描
+                    position = ImageScanner.scan(html, images, position);
+                    session.feed(html).applyTo(ssb);
+                }
+            });
+        } finally {
+            TextSource.closeQuietly(reader);
+        }
+        session.finish().applyTo(ssb);
+        if (digest != null) {
+            richText.setCacheKey(digest.finish(richText.getCacheConfig()));
+        }
+        return ssb;
+    }
+
+    /**
+     * 读取一遍文件，只计算缓存的key
+     *
+     * @return key
+     * @throws IOException 读取失败
+     */
+    private String digestSource() throws IOException {
+        StreamDigest digest = new StreamDigest();
+        char[] buffer = new char[SOURCE_BUFFER_SIZE];
+        Reader reader = textSource.open();
+        try {
+            int n;
+            while ((n = reader.read(buffer)) >= 0) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            TextSource.closeQuietly(reader);
+        }
+        return digest.finish(richText.getCacheConfig());
+    }
+}
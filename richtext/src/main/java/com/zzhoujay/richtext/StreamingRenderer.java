@@ -0,0 +1,150 @@
+package com.zzhoujay.richtext;
+
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.parser.HtmlTokenizer;
+import com.zzhoujay.richtext.parser.MarkdownBlocks;
+import com.zzhoujay.richtext.parser.RichHtmlParser;
+
+/**
+ * 追加模式，首次显示后通过{@link #append(String)}追加文本，只解析新增的部分，在主线程中解析
+ */
+class StreamingRenderer extends Renderer {
+
+    // Html的解析状态和还不能解析的末尾
+    private RichHtmlParser.Session streamSession;
+    private StringBuilder streamPending;
+    // Markdown的源文本、已经确定的块的结束位置、对应的显示长度和图片数量
+    private StringBuilder markdownSource;
+    private int markdownStable;
+    private int markdownStableLength;
+    private int markdownStableImages;
+
+    StreamingRenderer(RichText richText) {
+        super(richText);
+    }
+
+    @Override
+    void into(final TextView textView) {
+        post(textView, new Runnable() {
+            @Override
+            public void run() {
+                start(textView);
+            }
+        });
+    }
+
+    /**
+     * 在已经显示的内容之后追加文本
+     *
+     * @param delta 新增的文本
+     */
+    void append(final String delta) {
+        final TextView textView = richText.getTextView();
+        if (textView == null) {
+            return;
+        }
+        // 与into中的首次显示保持顺序
+        post(textView, new Runnable() {
+            @Override
+            public void run() {
+                if (textView.getText() instanceof Editable) {
+                    richText.beginParse();
+                    appendStream((Editable) textView.getText(), delta);
+                    richText.loadImages(textView, richText.takePendingImages());
+                }
+            }
+        });
+    }
+
+    /**
+     * 结束追加，Html中没有结束的标签在这里结束
+     */
+    void endStream() {
+        final TextView textView = richText.getTextView();
+        if (textView == null) {
+            return;
+        }
+        post(textView, new Runnable() {
+            @Override
+            public void run() {
+                if (!(textView.getText() instanceof Editable) || streamSession == null) {
+                    return;
+                }
+                Editable editable = (Editable) textView.getText();
+                richText.beginParse();
+                if (streamPending.length() > 0) {
+                    streamSession.feed(streamPending.toString()).applyTo(editable);
+                    streamPending.setLength(0);
+                }
+                streamSession.finish().applyTo(editable);
+                richText.loadImages(textView, richText.takePendingImages());
+            }
+        });
+    }
+
+    /**
+     * 首次显示，在主线程中调用
+     *
+     * @param textView textView
+     */
+    private void start(TextView textView) {
+        String source = richText.getSourceText();
+        richText.setState(RichState.loading);
+        richText.prepareTargets(textView);
+        richText.beginParse();
+        SpannableStringBuilder ssb = new SpannableStringBuilder();
+        if (richText.getParser() instanceof RichHtmlParser) {
+            richText.resetImages(source, 0);
+            streamSession = ((RichHtmlParser) richText.getParser()).newSession(richText.getImageGetter());
+            streamPending = new StringBuilder();
+        } else {
+            richText.resetImages(null, 0);
+            streamSession = null;
+            markdownSource = new StringBuilder();
+            markdownStable = 0;
+            markdownStableLength = 0;
+            markdownStableImages = 0;
+        }
+        appendStream(ssb, source);
+        textView.setText(ssb, TextView.BufferType.EDITABLE);
+        richText.loadImages(textView, richText.takePendingImages());
+    }
+
+    /**
+     * 解析追加的文本并追加到editable中
+     *
+     * @param editable 显示的文本
+     * @param delta    新增的源文本
+     */
+    private void appendStream(Editable editable, String delta) {
+        if (streamSession != null) {
+            streamPending.append(delta);
+            String pending = streamPending.toString();
+            int length = HtmlTokenizer.completeLength(pending);
+            if (length > 0) {
+                streamPending.delete(0, length);
+                streamSession.feed(pending.substring(0, length)).applyTo(editable);
+            }
+            return;
+        }
+        // Markdown：去掉上次没有结束的块，重新解析新增的完整块和最后一个没有结束的块
+        markdownSource.append(delta);
+        // 被删除的图片不会再显示，回收对应的ImageTarget
+        richText.releaseImages(editable, markdownStableLength, editable.length());
+        editable.delete(markdownStableLength, editable.length());
+        richText.truncateImageUrls(markdownStableImages);
+        int boundary = MarkdownBlocks.lastBoundary(markdownSource, markdownStable);
+        if (boundary > markdownStable) {
+            editable.append(richText.parseMarkdown(markdownSource.substring(markdownStable, boundary)));
+            markdownStable = boundary;
+            markdownStableLength = editable.length();
+            markdownStableImages = richText.getImageUrlCount();
+        }
+        if (boundary < markdownSource.length()) {
+            editable.append(richText.parseMarkdown(markdownSource.substring(boundary)));
+        }
+    }
+}
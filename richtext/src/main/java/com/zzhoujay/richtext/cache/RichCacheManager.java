@@ -1,7 +1,13 @@
 package com.zzhoujay.richtext.cache;
 
-import java.lang.ref.SoftReference;
-import java.util.HashMap;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.text.Spanned;
+import android.text.style.ImageSpan;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * Created by zhou on 16-10-24.
@@ -9,28 +15,200 @@ import java.util.HashMap;
  */
 public final class RichCacheManager {
 
-    private final HashMap<String, SoftReference<CharSequence>> pool;
+    private static final long DEFAULT_MAX_SIZE = Math.max(Runtime.getRuntime().maxMemory() / 16, 1024 * 1024);
+    // 每个span的对象和SpannableStringBuilder中的记录大约占用的字节数
+    private static final int SPAN_OVERHEAD = 48;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final SoftLruCache<String, CharSequence> pool;
+    // 预取的解析结果，不包含图片，可以被任意RichText使用
+    private final SoftLruCache<String, RichDocument> documents;
+    private volatile DocumentDiskCache diskCache;
 
     private RichCacheManager() {
-        pool = new HashMap<>();
+        pool = new SoftLruCache<String, CharSequence>(DEFAULT_MAX_SIZE) {
+            @Override
+            protected long sizeOf(String key, CharSequence value) {
+                return estimateSize(value);
+            }
+        };
+        documents = new SoftLruCache<String, RichDocument>(DEFAULT_MAX_SIZE / 4) {
+            @Override
+            protected long sizeOf(String key, RichDocument value) {
+                return value.getText().length() * 2 + value.getSpans().size() * SPAN_OVERHEAD;
+            }
+        };
     }
 
     public void put(String key, CharSequence value) {
-        pool.put(key, new SoftReference<>(value));
+        pool.put(key, value);
     }
 
     public CharSequence get(String key) {
-        SoftReference<CharSequence> charSequenceSoftReference = pool.get(key);
-        if (charSequenceSoftReference == null) {
-            return null;
-        }
-        return charSequenceSoftReference.get();
+        return pool.get(key);
     }
 
     public void clear(String key) {
         pool.remove(key);
     }
 
+    /**
+     * 保存预取的解析结果
+     *
+     * @param key      {@link #generateDocumentKey(String)}
+     * @param document RichDocument
+     */
+    public void putDocument(String key, RichDocument document) {
+        documents.put(key, document);
+    }
+
+    public RichDocument getDocument(String key) {
+        return documents.get(key);
+    }
+
+    /**
+     * 是否有预取的解析结果，没有时不需要计算key
+     *
+     * @return true:有
+     */
+    public boolean hasDocuments() {
+        return documents.count() > 0;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clearAll() {
+        pool.evictAll();
+        documents.evictAll();
+    }
+
+    /**
+     * 设置缓存的上限
+     *
+     * @param maxSize 估算的字节数
+     */
+    public void setMaxSize(long maxSize) {
+        pool.resize(maxSize);
+    }
+
+    /**
+     * 设置磁盘缓存，为null时关闭磁盘缓存
+     *
+     * @param diskCache DocumentDiskCache
+     */
+    public void setDiskCache(DocumentDiskCache diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    public DocumentDiskCache getDiskCache() {
+        return diskCache;
+    }
+
+    public long getMaxSize() {
+        return pool.maxSize();
+    }
+
+    public long getSize() {
+        return pool.size();
+    }
+
+    public long getHitCount() {
+        return pool.hitCount();
+    }
+
+    public long getMissCount() {
+        return pool.missCount();
+    }
+
+    public long getEvictionCount() {
+        return pool.evictionCount();
+    }
+
+    /**
+     * 被GC回收的缓存数量
+     *
+     * @return count
+     */
+    public long getCollectedCount() {
+        return pool.collectedCount();
+    }
+
+    @Override
+    public String toString() {
+        return pool.toString();
+    }
+
+    /**
+     * 估算富文本占用的内存：文本长度、span数量和图片的大小
+     *
+     * @param value 富文本
+     * @return 字节数
+     */
+    static long estimateSize(CharSequence value) {
+        long size = value.length() * 2;
+        if (value instanceof Spanned) {
+            Spanned spanned = (Spanned) value;
+            Object[] spans = spanned.getSpans(0, spanned.length(), Object.class);
+            size += spans.length * SPAN_OVERHEAD;
+            for (Object span : spans) {
+                if (span instanceof ImageSpan) {
+                    Drawable drawable = ((ImageSpan) span).getDrawable();
+                    if (drawable != null) {
+                        Rect bounds = drawable.getBounds();
+                        size += (long) bounds.width() * bounds.height() * BYTES_PER_PIXEL;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 根据源文本生成缓存的key，避免缓存一直持有完整的源文本
+     *
+     * @param text 源文本
+     * @return key
+     */
+    public static String generateKey(String text) {
+        return generateKey(text, null);
+    }
+
+    /**
+     * 根据源文本和解析配置生成缓存的key
+     *
+     * @param text   源文本
+     * @param config 影响解析结果的配置，可以为null
+     * @return key
+     */
+    public static String generateKey(String text, String config) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(text.getBytes("UTF-8"));
+            if (config != null) {
+                digest.update(config.getBytes("UTF-8"));
+            }
+            byte[] bytes = digest.digest();
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            return String.valueOf(text.hashCode()) + '_' + text.length() + '_' + config;
+        }
+    }
+
+
+    /**
+     * 预取的Html解析结果使用的key，与点击等显示配置无关
+     *
+     * @param html 源文本
+     * @return key
+     */
+    public static String generateDocumentKey(String html) {
+        return generateKey(html, "html_document");
+    }
 
     private static class RichCacheManagerHolder {
         private static final RichCacheManager RICH_CACHE_MANAGER = new RichCacheManager();
@@ -0,0 +1,268 @@
+package com.zzhoujay.richtext.cache;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.text.Html;
+import android.text.Layout;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.AbsoluteSizeSpan;
+import android.text.style.AlignmentSpan;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.ImageSpan;
+import android.text.style.LeadingMarginSpan;
+import android.text.style.QuoteSpan;
+import android.text.style.RelativeSizeSpan;
+import android.text.style.StrikethroughSpan;
+import android.text.style.StyleSpan;
+import android.text.style.SubscriptSpan;
+import android.text.style.SuperscriptSpan;
+import android.text.style.TypefaceSpan;
+import android.text.style.URLSpan;
+import android.text.style.UnderlineSpan;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.parser.HtmlConverter;
+import com.zzhoujay.richtext.spans.ClickableSpanFactory;
+import com.zzhoujay.richtext.spans.LongCallableURLSpan;
+import com.zzhoujay.richtext.spans.LongClickableSpan;
+import com.zzhoujay.richtext.spans.RichBulletSpan;
+import com.zzhoujay.richtext.spans.RichCodeSpan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spanned和RichDocument之间的转换
+ */
+public final class SpanCodec {
+
+    private static final int BULLET_COLOR = Color.parseColor("#333333");
+
+    private SpanCodec() {
+    }
+
+    /**
+     * 把Spanned转换为RichDocument
+     *
+     * @param spanned Spanned
+     * @return RichDocument，包含无法序列化的span时返回null
+     */
+    public static RichDocument encode(Spanned spanned) {
+        Object[] spans = spanned.getSpans(0, spanned.length(), Object.class);
+        List<SpanRecord> records = new ArrayList<>(spans.length);
+        for (Object span : spans) {
+            int start = spanned.getSpanStart(span);
+            int end = spanned.getSpanEnd(span);
+            int flags = spanned.getSpanFlags(span);
+            Class<?> c = span.getClass();
+            SpanRecord record;
+            if (span instanceof LongClickableSpan) {
+                // 图片的点击事件在还原时重新生成
+                continue;
+            } else if (c == StyleSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_STYLE, start, end, flags, ((StyleSpan) span).getStyle(), null);
+            } else if (c == UnderlineSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_UNDERLINE, start, end, flags, 0, null);
+            } else if (c == StrikethroughSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_STRIKETHROUGH, start, end, flags, 0, null);
+            } else if (c == SubscriptSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_SUBSCRIPT, start, end, flags, 0, null);
+            } else if (c == SuperscriptSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_SUPERSCRIPT, start, end, flags, 0, null);
+            } else if (c == RelativeSizeSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_RELATIVE_SIZE, start, end, flags, Float.floatToIntBits(((RelativeSizeSpan) span).getSizeChange()), null);
+            } else if (c == AbsoluteSizeSpan.class) {
+                AbsoluteSizeSpan as = (AbsoluteSizeSpan) span;
+                record = new SpanRecord(as.getDip() ? SpanRecord.TYPE_ABSOLUTE_SIZE_DIP : SpanRecord.TYPE_ABSOLUTE_SIZE, start, end, flags, as.getSize(), null);
+            } else if (c == ForegroundColorSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_FOREGROUND_COLOR, start, end, flags, ((ForegroundColorSpan) span).getForegroundColor(), null);
+            } else if (c == BackgroundColorSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_BACKGROUND_COLOR, start, end, flags, ((BackgroundColorSpan) span).getBackgroundColor(), null);
+            } else if (c == TypefaceSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_TYPEFACE, start, end, flags, 0, ((TypefaceSpan) span).getFamily());
+            } else if (c == URLSpan.class || c == LongCallableURLSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_URL, start, end, flags, 0, ((URLSpan) span).getURL());
+            } else if (c == ImageSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_IMAGE, start, end, flags, 0, ((ImageSpan) span).getSource());
+            } else if (c == QuoteSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_QUOTE, start, end, flags, ((QuoteSpan) span).getColor(), null);
+            } else if (c == AlignmentSpan.Standard.class) {
+                record = new SpanRecord(SpanRecord.TYPE_ALIGNMENT, start, end, flags, ((AlignmentSpan.Standard) span).getAlignment().ordinal(), null);
+            } else if (c == LeadingMarginSpan.Standard.class) {
+                LeadingMarginSpan.Standard ls = (LeadingMarginSpan.Standard) span;
+                // 两个缩进值各占16位
+                int value = (ls.getLeadingMargin(true) << 16) | (ls.getLeadingMargin(false) & 0xFFFF);
+                record = new SpanRecord(SpanRecord.TYPE_LEADING_MARGIN, start, end, flags, value, null);
+            } else if (c == RichCodeSpan.class) {
+                record = new SpanRecord(SpanRecord.TYPE_CODE, start, end, flags, ((RichCodeSpan) span).getColor(), null);
+            } else if (c == RichBulletSpan.class) {
+                RichBulletSpan bs = (RichBulletSpan) span;
+                record = new SpanRecord(SpanRecord.TYPE_BULLET, start, end, flags, HtmlConverter.packBullet(bs.getLevel(), bs.getIndex()), null);
+            } else {
+                // 其它自定义span(例如Markdown库生成的样式)无法还原，不进行缓存
+                return null;
+            }
+            records.add(record);
+        }
+        return new RichDocument(spanned.toString(), records);
+    }
+
+    /**
+     * 从RichDocument还原Spanned，不经过Html或Markdown的解析
+     *
+     * @param document    RichDocument
+     * @param imageGetter 用于生成图片的ImageGetter
+     * @return SpannableStringBuilder
+     */
+    public static SpannableStringBuilder decode(RichDocument document, Html.ImageGetter imageGetter) {
+        return decode(document, imageGetter, null, null);
+    }
+
+    /**
+     * 从RichDocument还原Spanned，图片和链接直接生成可点击的span
+     *
+     * @param document             RichDocument
+     * @param imageGetter          用于生成图片的ImageGetter
+     * @param clickableSpanFactory 为null时不处理点击事件
+     * @param textView             列表项的span绘制时需要，为null时不还原列表项
+     * @return SpannableStringBuilder
+     */
+    public static SpannableStringBuilder decode(RichDocument document, Html.ImageGetter imageGetter, ClickableSpanFactory clickableSpanFactory, TextView textView) {
+        SpannableStringBuilder ssb = new SpannableStringBuilder(document.getText());
+        List<SpanRecord> records = document.getSpans();
+        int[] imageStarts = clickableSpanFactory == null ? null : imageStarts(records);
+        int imageIndex = 0;
+        for (SpanRecord record : records) {
+            int type = record.getType();
+            Object span;
+            if (clickableSpanFactory != null && type == SpanRecord.TYPE_URL) {
+                if (containsImage(imageStarts, record.getStart(), record.getEnd())) {
+                    // 图片的点击事件优先
+                    continue;
+                }
+                span = clickableSpanFactory.createUrlSpan(record.getPayload());
+            } else {
+                span = createSpan(type, record.getValue(), record.getPayload(), imageGetter, textView);
+            }
+            if (span != null) {
+                ssb.setSpan(span, record.getStart(), record.getEnd(), record.getFlags());
+            }
+            if (clickableSpanFactory != null && type == SpanRecord.TYPE_IMAGE) {
+                ssb.setSpan(clickableSpanFactory.createImageSpan(record.getPayload(), imageIndex++),
+                        record.getStart(), record.getEnd(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+        }
+        return ssb;
+    }
+
+    private static int[] imageStarts(List<SpanRecord> records) {
+        int count = 0;
+        for (SpanRecord record : records) {
+            if (record.getType() == SpanRecord.TYPE_IMAGE) {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int i = 0;
+        for (SpanRecord record : records) {
+            if (record.getType() == SpanRecord.TYPE_IMAGE) {
+                starts[i++] = record.getStart();
+            }
+        }
+        Arrays.sort(starts);
+        return starts;
+    }
+
+    /**
+     * 二分查找[start, end)中是否有图片
+     */
+    private static boolean containsImage(int[] imageStarts, int start, int end) {
+        int low = 0, high = imageStarts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (imageStarts[mid] < start) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low < imageStarts.length && imageStarts[low] < end;
+    }
+
+    /**
+     * 根据类型创建span
+     *
+     * @param type        {@link SpanRecord}中的类型
+     * @param value       整型参数
+     * @param payload     字符串参数
+     * @param imageGetter 用于生成图片的ImageGetter
+     * @return span，不支持的类型返回null
+     */
+    public static Object createSpan(int type, int value, String payload, Html.ImageGetter imageGetter) {
+        return createSpan(type, value, payload, imageGetter, null);
+    }
+
+    /**
+     * 根据类型创建span
+     *
+     * @param type        {@link SpanRecord}中的类型
+     * @param value       整型参数
+     * @param payload     字符串参数
+     * @param imageGetter 用于生成图片的ImageGetter
+     * @param textView    列表项的span绘制时需要，为null时不生成列表项
+     * @return span，不支持的类型返回null
+     */
+    public static Object createSpan(int type, int value, String payload, Html.ImageGetter imageGetter, TextView textView) {
+        switch (type) {
+            case SpanRecord.TYPE_STYLE:
+                return new StyleSpan(value);
+            case SpanRecord.TYPE_UNDERLINE:
+                return new UnderlineSpan();
+            case SpanRecord.TYPE_STRIKETHROUGH:
+                return new StrikethroughSpan();
+            case SpanRecord.TYPE_SUBSCRIPT:
+                return new SubscriptSpan();
+            case SpanRecord.TYPE_SUPERSCRIPT:
+                return new SuperscriptSpan();
+            case SpanRecord.TYPE_RELATIVE_SIZE:
+                return new RelativeSizeSpan(Float.intBitsToFloat(value));
+            case SpanRecord.TYPE_ABSOLUTE_SIZE:
+                return new AbsoluteSizeSpan(value, false);
+            case SpanRecord.TYPE_ABSOLUTE_SIZE_DIP:
+                return new AbsoluteSizeSpan(value, true);
+            case SpanRecord.TYPE_FOREGROUND_COLOR:
+                return new ForegroundColorSpan(value);
+            case SpanRecord.TYPE_BACKGROUND_COLOR:
+                return new BackgroundColorSpan(value);
+            case SpanRecord.TYPE_TYPEFACE:
+                return new TypefaceSpan(payload);
+            case SpanRecord.TYPE_URL:
+                return new URLSpan(payload);
+            case SpanRecord.TYPE_IMAGE:
+                Drawable drawable = imageGetter.getDrawable(payload);
+                if (drawable == null) {
+                    drawable = new ColorDrawable(Color.TRANSPARENT);
+                }
+                return new ImageSpan(drawable, payload);
+            case SpanRecord.TYPE_QUOTE:
+                return new QuoteSpan(value);
+            case SpanRecord.TYPE_ALIGNMENT:
+                return new AlignmentSpan.Standard(Layout.Alignment.values()[value]);
+            case SpanRecord.TYPE_LEADING_MARGIN:
+                return new LeadingMarginSpan.Standard(value >> 16, (short) value);
+            case SpanRecord.TYPE_CODE:
+                return new RichCodeSpan(value);
+            case SpanRecord.TYPE_BULLET:
+                if (textView == null) {
+                    return null;
+                }
+                return new RichBulletSpan(HtmlConverter.bulletLevel(value), BULLET_COLOR, HtmlConverter.bulletIndex(value), textView);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.zzhoujay.richtext.ext;
+
+import android.text.Layout;
+import android.text.SpanWatcher;
+import android.text.Spannable;
+import android.text.Spanned;
+import android.text.style.ClickableSpan;
+import android.text.style.ImageSpan;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 可点击区域的索引，按起始位置排序，点击时二分查找，不再每次调用getSpans
+ * 只和生成时的文本和Layout对应，任意一个发生变化时需要重新生成
+ * 可修改的文本上会设置一个SpanWatcher，点击span或图片被增删、移动后索引失效（长度不变的局部修改也能发现）
+ */
+final class ClickableSpanIndex {
+
+    private final Spanned text;
+    private final Layout layout;
+    private final int length;
+
+    private final ClickableSpan[] spans;
+    private final int[] starts;
+    private final int[] ends;
+    // 前i个span中最大的结束位置，用于处理嵌套的span
+    private final int[] maxEnds;
+    // span范围内的图片，没有图片时为null
+    private final ImageSpan[] images;
+    // 可修改的文本上的监听，不可修改时为null
+    private final Watcher watcher;
+
+    private ClickableSpanIndex(Spanned text, Layout layout) {
+        this.text = text;
+        this.layout = layout;
+        this.length = text.length();
+        if (text instanceof Spannable) {
+            watcher = new Watcher();
+            ((Spannable) text).setSpan(watcher, 0, length, Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        } else {
+            watcher = null;
+        }
+
+        ClickableSpan[] clickableSpans = text.getSpans(0, length, ClickableSpan.class);
+        int count = clickableSpans.length;
+        Entry[] entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            ClickableSpan span = clickableSpans[i];
+            entries[i] = new Entry(span, text.getSpanStart(span), text.getSpanEnd(span), i);
+        }
+        // 起始位置相同时保持getSpans的顺序
+        Arrays.sort(entries, ENTRY_COMPARATOR);
+
+        ImageSpan[] imageSpans = text.getSpans(0, length, ImageSpan.class);
+        Entry[] imageEntries = new Entry[imageSpans.length];
+        for (int i = 0; i < imageSpans.length; i++) {
+            ImageSpan span = imageSpans[i];
+            imageEntries[i] = new Entry(span, text.getSpanStart(span), text.getSpanEnd(span), i);
+        }
+        Arrays.sort(imageEntries, ENTRY_COMPARATOR);
+
+        spans = new ClickableSpan[count];
+        starts = new int[count];
+        ends = new int[count];
+        maxEnds = new int[count];
+        images = new ImageSpan[count];
+        int maxEnd = -1;
+        for (int i = 0; i < count; i++) {
+            Entry entry = entries[i];
+            spans[i] = (ClickableSpan) entry.span;
+            starts[i] = entry.start;
+            ends[i] = entry.end;
+            maxEnd = Math.max(maxEnd, entry.end);
+            maxEnds[i] = maxEnd;
+            images[i] = findImage(imageEntries, entry.start, entry.end);
+        }
+    }
+
+    /**
+     * 获取索引，文本和Layout没有变化时复用原来的索引
+     *
+     * @param index  原来的索引，可以为null
+     * @param text   文本
+     * @param layout Layout
+     * @return 索引
+     */
+    static ClickableSpanIndex obtain(ClickableSpanIndex index, Spanned text, Layout layout) {
+        if (index != null && index.text == text && index.layout == layout && index.length == text.length()
+                && (index.watcher == null || !index.watcher.stale)) {
+            return index;
+        }
+        if (index != null && index.watcher != null) {
+            ((Spannable) index.text).removeSpan(index.watcher);
+        }
+        return new ClickableSpanIndex(text, layout);
+    }
+
+    /**
+     * 查找包含offset的span，与getSpans(offset, offset, ClickableSpan.class)的范围相同
+     *
+     * @param offset 文本位置
+     * @return span的序号，没有时返回-1
+     */
+    int find(int offset) {
+        // 最后一个起始位置不大于offset的span
+        int low = 0, high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        for (int i = high; i >= 0 && maxEnds[i] >= offset; i--) {
+            if (ends[i] >= offset) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    ClickableSpan getSpan(int i) {
+        return spans[i];
+    }
+
+    int getStart(int i) {
+        return starts[i];
+    }
+
+    int getEnd(int i) {
+        return ends[i];
+    }
+
+    ImageSpan getImage(int i) {
+        return images[i];
+    }
+
+    /**
+     * 与[start, end]相交的第一个图片
+     */
+    private static ImageSpan findImage(Entry[] images, int start, int end) {
+        int low = 0, high = images.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (images[mid].end < start) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        for (int i = low; i < images.length && images[i].start <= end; i++) {
+            if (images[i].end >= start) {
+                return (ImageSpan) images[i].span;
+            }
+        }
+        return null;
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            if (lhs.start != rhs.start) {
+                return lhs.start < rhs.start ? -1 : 1;
+            }
+            return lhs.order < rhs.order ? -1 : (lhs.order == rhs.order ? 0 : 1);
+        }
+    };
+
+    /**
+     * 监听文本中点击span和图片的变化，SpanWatcher是NoCopySpan，不会随文本复制
+     */
+    private static class Watcher implements SpanWatcher {
+
+        boolean stale;
+
+        @Override
+        public void onSpanAdded(Spannable text, Object what, int start, int end) {
+            check(what);
+        }
+
+        @Override
+        public void onSpanRemoved(Spannable text, Object what, int start, int end) {
+            check(what);
+        }
+
+        @Override
+        public void onSpanChanged(Spannable text, Object what, int ostart, int oend, int nstart, int nend) {
+            check(what);
+        }
+
+        private void check(Object what) {
+            if (what instanceof ClickableSpan || what instanceof ImageSpan) {
+                stale = true;
+            }
+        }
+    }
+
+    private static class Entry {
+
+        final Object span;
+        final int start;
+        final int end;
+        final int order;
+
+        Entry(Object span, int start, int end, int order) {
+            this.span = span;
+            this.start = start;
+            this.end = end;
+            this.order = order;
+        }
+    }
+}
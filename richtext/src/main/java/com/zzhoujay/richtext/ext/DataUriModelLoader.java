@@ -0,0 +1,64 @@
+package com.zzhoujay.richtext.ext;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.stream.StreamModelLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 加载data URI图片，在Glide的后台线程中边读边解码
+ * 使用内容哈希作为id，相同内容的图片可以命中Glide的内存缓存和磁盘缓存，不再重复解码
+ */
+public class DataUriModelLoader implements StreamModelLoader<DataUri> {
+
+    private static final DataUriModelLoader INSTANCE = new DataUriModelLoader();
+
+    public static DataUriModelLoader getInstance() {
+        return INSTANCE;
+    }
+
+    private DataUriModelLoader() {
+    }
+
+    @Override
+    public DataFetcher<InputStream> getResourceFetcher(DataUri model, int width, int height) {
+        return new DataUriFetcher(model);
+    }
+
+    private static class DataUriFetcher implements DataFetcher<InputStream> {
+
+        private final DataUri dataUri;
+        private InputStream stream;
+
+        DataUriFetcher(DataUri dataUri) {
+            this.dataUri = dataUri;
+        }
+
+        @Override
+        public InputStream loadData(Priority priority) throws Exception {
+            stream = dataUri.openStream();
+            return stream;
+        }
+
+        @Override
+        public void cleanup() {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        @Override
+        public String getId() {
+            return dataUri.getId();
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.zzhoujay.richtext.ext;
+
+import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.zzhoujay.richtext.cache.ImageSizeCache;
+
+/**
+ * 按目标宽度计算采样率，解码后的宽度不小于目标宽度
+ * 高度由宽高比决定，不参与计算
+ * 从源数据解码时计算采样率拿到的是图片的原始尺寸，在这里记录到ImageSizeCache，采样后的尺寸不再记录
+ */
+public class FitWidthDownsampler extends Downsampler {
+
+    private static final String ID = "FitWidthDownsampler.com.zzhoujay.richtext";
+
+    private final String src;
+    private final boolean fromCache;
+
+    /**
+     * @param src 图片地址，作为ImageSizeCache的key
+     */
+    public FitWidthDownsampler(String src) {
+        this(src, false);
+    }
+
+    /**
+     * @param src       图片地址，作为ImageSizeCache的key
+     * @param fromCache 是否从磁盘缓存中解码，缓存的也可能是已经采样过的结果，这时只在还没有记录时记录
+     */
+    public FitWidthDownsampler(String src, boolean fromCache) {
+        this.src = src;
+        this.fromCache = fromCache;
+    }
+
+    @Override
+    protected int getSampleSize(int inWidth, int inHeight, int outWidth, int outHeight) {
+        if (inWidth > 0 && inHeight > 0 && (!fromCache || ImageSizeCache.getCache().get(src) == null)) {
+            ImageSizeCache.getCache().put(src, inWidth, inHeight, false);
+        }
+        if (outWidth <= 0 || inWidth <= outWidth) {
+            return 1;
+        }
+        return inWidth / outWidth;
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+}
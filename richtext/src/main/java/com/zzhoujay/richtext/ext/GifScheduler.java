@@ -0,0 +1,287 @@
+package com.zzhoujay.richtext.ext;
+
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.style.ImageSpan;
+import android.view.ViewTreeObserver;
+import android.widget.TextView;
+
+import com.bumptech.glide.load.resource.gif.GifDrawable;
+import com.zzhoujay.richtext.drawable.URLDrawable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * 同一个TextView中所有gif共用的动画调度
+ * 每一帧只重绘gif所在的区域，并合并到InvalidateScheduler中每帧最多刷新一次；
+ * 滚动出可见区域的gif暂停播放，同时播放的gif数量有上限；只能在主线程中使用
+ */
+public final class GifScheduler implements Drawable.Callback, ViewTreeObserver.OnScrollChangedListener, ViewTreeObserver.OnGlobalLayoutListener {
+
+    private static final String TAG_GIF_SCHEDULER = "rich_gif_scheduler";
+    public static final int DEFAULT_MAX_PLAYING = 4;
+
+    private final WeakReference<TextView> textViewWeakReference;
+    private final ArrayList<Entry> entries;
+    private final Rect visible;
+    private final Rect bounds;
+    private ViewTreeObserver observer;
+    private CharSequence resolvedText;
+    private int maxPlaying;
+
+    private GifScheduler(TextView textView) {
+        this.textViewWeakReference = new WeakReference<>(textView);
+        this.entries = new ArrayList<>();
+        this.visible = new Rect();
+        this.bounds = new Rect();
+        this.maxPlaying = DEFAULT_MAX_PLAYING;
+    }
+
+    /**
+     * 获取TextView对应的GifScheduler
+     *
+     * @param textView textView
+     * @return GifScheduler
+     */
+    public static GifScheduler from(TextView textView) {
+        Object tag = textView.getTag(TAG_GIF_SCHEDULER.hashCode());
+        if (tag instanceof GifScheduler) {
+            return (GifScheduler) tag;
+        }
+        GifScheduler scheduler = new GifScheduler(textView);
+        textView.setTag(TAG_GIF_SCHEDULER.hashCode(), scheduler);
+        return scheduler;
+    }
+
+    /**
+     * 设置同时播放的gif数量上限
+     *
+     * @param maxPlaying 上限，小于等于0时不限制
+     */
+    public void setMaxPlaying(int maxPlaying) {
+        this.maxPlaying = maxPlaying;
+        update();
+    }
+
+    /**
+     * 添加需要播放的gif
+     *
+     * @param gifDrawable gif
+     * @param urlDrawable gif所在的URLDrawable，用于找到gif在文本中的位置
+     */
+    public void add(GifDrawable gifDrawable, URLDrawable urlDrawable) {
+        if (indexOf(gifDrawable) >= 0) {
+            return;
+        }
+        gifDrawable.setCallback(this);
+        entries.add(new Entry(gifDrawable, urlDrawable));
+        resolvedText = null;
+        if (entries.size() == 1) {
+            observe();
+        }
+        update();
+    }
+
+    /**
+     * 移除gif并停止播放
+     *
+     * @param gifDrawable gif
+     */
+    public void remove(GifDrawable gifDrawable) {
+        int index = indexOf(gifDrawable);
+        if (index < 0) {
+            return;
+        }
+        entries.remove(index);
+        gifDrawable.setCallback(null);
+        gifDrawable.stop();
+        if (entries.isEmpty()) {
+            unobserve();
+        } else {
+            // 腾出的名额交给其它可见的gif
+            update();
+        }
+    }
+
+    /**
+     * 根据可见区域和数量上限重新决定哪些gif播放
+     */
+    private void update() {
+        TextView textView = textViewWeakReference.get();
+        if (textView == null || entries.isEmpty()) {
+            return;
+        }
+        resolve(textView);
+        boolean shown = textView.getLocalVisibleRect(visible);
+        int playing = 0;
+        for (int i = 0, size = entries.size(); i < size; i++) {
+            Entry entry = entries.get(i);
+            boolean play = shown && (maxPlaying <= 0 || playing < maxPlaying)
+                    && (!getBounds(textView, entry, bounds) || Rect.intersects(visible, bounds));
+            if (play) {
+                playing++;
+                if (!entry.gifDrawable.isRunning()) {
+                    entry.gifDrawable.start();
+                }
+            } else if (entry.gifDrawable.isRunning()) {
+                entry.gifDrawable.stop();
+            }
+        }
+    }
+
+    /**
+     * 文本变化后重新查找每个gif在文本中的位置，并按位置排序
+     */
+    private void resolve(TextView textView) {
+        CharSequence text = textView.getText();
+        if (text == resolvedText) {
+            return;
+        }
+        resolvedText = text;
+        for (Entry entry : entries) {
+            entry.offset = -1;
+        }
+        if (text instanceof Spanned) {
+            Spanned spanned = (Spanned) text;
+            ImageSpan[] spans = spanned.getSpans(0, spanned.length(), ImageSpan.class);
+            for (ImageSpan span : spans) {
+                Drawable drawable = span.getDrawable();
+                for (Entry entry : entries) {
+                    if (entry.urlDrawable.get() == drawable) {
+                        entry.offset = spanned.getSpanStart(span);
+                        break;
+                    }
+                }
+            }
+        }
+        Collections.sort(entries, ENTRY_COMPARATOR);
+    }
+
+    /**
+     * 计算gif在TextView中占据的区域
+     *
+     * @return false:还没有布局或者找不到gif所在的位置
+     */
+    private static boolean getBounds(TextView textView, Entry entry, Rect out) {
+        Layout layout = textView.getLayout();
+        URLDrawable urlDrawable = entry.urlDrawable.get();
+        if (layout == null || urlDrawable == null || entry.offset < 0 || entry.offset > layout.getText().length()) {
+            return false;
+        }
+        int line = layout.getLineForOffset(entry.offset);
+        int left = textView.getTotalPaddingLeft() + (int) layout.getPrimaryHorizontal(entry.offset);
+        int top = textView.getTotalPaddingTop();
+        out.set(left, top + layout.getLineTop(line), left + urlDrawable.getBounds().width(), top + layout.getLineBottom(line));
+        return true;
+    }
+
+    private int indexOf(Drawable drawable) {
+        for (int i = 0, size = entries.size(); i < size; i++) {
+            if (entries.get(i).gifDrawable == drawable) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void observe() {
+        TextView textView = textViewWeakReference.get();
+        if (textView == null) {
+            return;
+        }
+        observer = textView.getViewTreeObserver();
+        observer.addOnScrollChangedListener(this);
+        observer.addOnGlobalLayoutListener(this);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void unobserve() {
+        ViewTreeObserver vto = observer;
+        observer = null;
+        if (vto == null) {
+            return;
+        }
+        if (!vto.isAlive()) {
+            TextView textView = textViewWeakReference.get();
+            if (textView == null) {
+                return;
+            }
+            vto = textView.getViewTreeObserver();
+        }
+        vto.removeOnScrollChangedListener(this);
+        vto.removeGlobalOnLayoutListener(this);
+    }
+
+    @Override
+    public void onScrollChanged() {
+        update();
+    }
+
+    @Override
+    public void onGlobalLayout() {
+        update();
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        TextView textView = textViewWeakReference.get();
+        if (textView == null) {
+            return;
+        }
+        resolve(textView);
+        int index = indexOf(who);
+        if (index >= 0) {
+            if (getBounds(textView, entries.get(index), bounds)) {
+                InvalidateScheduler.from(textView).requestInvalidate(bounds.left, bounds.top, bounds.right, bounds.bottom);
+                return;
+            }
+        }
+        InvalidateScheduler.from(textView).requestInvalidate();
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        TextView textView = textViewWeakReference.get();
+        if (textView != null) {
+            textView.postDelayed(what, when - SystemClock.uptimeMillis());
+        }
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        TextView textView = textViewWeakReference.get();
+        if (textView != null) {
+            textView.removeCallbacks(what);
+        }
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            // 找不到位置的gif排在最后
+            int l = lhs.offset < 0 ? Integer.MAX_VALUE : lhs.offset;
+            int r = rhs.offset < 0 ? Integer.MAX_VALUE : rhs.offset;
+            return l < r ? -1 : (l == r ? 0 : 1);
+        }
+    };
+
+    private static final class Entry {
+
+        private final GifDrawable gifDrawable;
+        private final WeakReference<URLDrawable> urlDrawable;
+        private int offset;
+
+        Entry(GifDrawable gifDrawable, URLDrawable urlDrawable) {
+            this.gifDrawable = gifDrawable;
+            this.urlDrawable = new WeakReference<>(urlDrawable);
+            this.offset = -1;
+        }
+    }
+}
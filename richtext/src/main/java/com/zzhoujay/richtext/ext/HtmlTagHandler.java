@@ -12,26 +12,25 @@ import com.zzhoujay.markdown.style.MarkDownBulletSpan;
 import org.xml.sax.XMLReader;
 
 import java.lang.ref.SoftReference;
-import java.util.Stack;
 
 /**
  * Created by zhou on 16-10-20.
  * 自定义标签的处理
+ *
+ * @deprecated ul、ol、li和code已经由{@link com.zzhoujay.richtext.parser.RichHtmlParser}处理
  */
+@Deprecated
 public class HtmlTagHandler implements Html.TagHandler {
 
     private static final int code_color = Color.parseColor("#F0F0F0");
     private static final int h1_color = Color.parseColor("#333333");
 
 
-    private Stack<Integer> stack;
-    private Stack<Boolean> list;
-    private int index = 0;
+    private final TagStack stack;
     private SoftReference<TextView> textViewSoftReference;
 
     public HtmlTagHandler(TextView textView) {
-        stack = new Stack<>();
-        list = new Stack<>();
+        stack = new TagStack();
         this.textViewSoftReference = new SoftReference<>(textView);
     }
 
@@ -39,14 +38,9 @@ public class HtmlTagHandler implements Html.TagHandler {
     public void handleTag(boolean opening, String tag, Editable output, XMLReader xmlReader) {
         if (opening) {
             startTag(tag, output, xmlReader);
-            stack.push(output.length());
+            stack.pushTag(output.length());
         } else {
-            int len;
-            if (stack.isEmpty()) {
-                len = 0;
-            } else {
-                len = stack.pop();
-            }
+            int len = stack.popTag();
             reallyHandler(len, output.length(), tag.toLowerCase(), output, xmlReader);
         }
     }
@@ -54,11 +48,11 @@ public class HtmlTagHandler implements Html.TagHandler {
     private void startTag(String tag, Editable out, XMLReader reader) {
         switch (tag) {
             case "ul":
-                list.push(true);
+                stack.pushList(false);
                 out.append('\n');
                 break;
             case "ol":
-                list.push(false);
+                stack.pushList(true);
                 out.append('\n');
                 break;
         }
@@ -73,24 +67,16 @@ public class HtmlTagHandler implements Html.TagHandler {
             case "ol":
             case "ul":
                 out.append('\n');
-                if (!list.isEmpty())
-                    list.pop();
+                stack.popList();
                 break;
             case "li":
-                boolean isUl = list.peek();
-                int i;
-                if (isUl) {
-                    index = 0;
-                    i = -1;
-                } else {
-                    i = ++index;
-                }
+                int i = stack.nextListIndex();
                 out.append('\n');
                 TextView textView = textViewSoftReference.get();
                 if(textView==null){
                     return;
                 }
-                MarkDownBulletSpan bulletSpan = new MarkDownBulletSpan(list.size() - 1, h1_color, i, textView);
+                MarkDownBulletSpan bulletSpan = new MarkDownBulletSpan(stack.listLevel(), h1_color, i, textView);
                 out.setSpan(bulletSpan, start, out.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
                 break;
         }
@@ -0,0 +1,106 @@
+package com.zzhoujay.richtext.ext;
+
+import android.graphics.Rect;
+import android.support.v4.view.ViewCompat;
+import android.widget.TextView;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * 合并同一帧内的刷新请求，每个TextView每帧最多重新布局一次
+ * 只能在主线程中使用
+ */
+public final class InvalidateScheduler implements Runnable {
+
+    private static final String TAG_INVALIDATE_SCHEDULER = "rich_invalidator";
+
+    private final WeakReference<TextView> textViewWeakReference;
+    private boolean scheduled;
+    private boolean relayout;
+    private boolean invalidateAll;
+    private final Rect dirty;
+
+    private InvalidateScheduler(TextView textView) {
+        this.textViewWeakReference = new WeakReference<>(textView);
+        this.dirty = new Rect();
+    }
+
+    /**
+     * 获取TextView对应的InvalidateScheduler
+     *
+     * @param textView textView
+     * @return InvalidateScheduler
+     */
+    public static InvalidateScheduler from(TextView textView) {
+        Object tag = textView.getTag(TAG_INVALIDATE_SCHEDULER.hashCode());
+        if (tag instanceof InvalidateScheduler) {
+            return (InvalidateScheduler) tag;
+        }
+        InvalidateScheduler scheduler = new InvalidateScheduler(textView);
+        textView.setTag(TAG_INVALIDATE_SCHEDULER.hashCode(), scheduler);
+        return scheduler;
+    }
+
+    /**
+     * 图片大小发生了变化，需要重新布局
+     */
+    public void requestLayout() {
+        relayout = true;
+        schedule();
+    }
+
+    /**
+     * 图片大小没有变化，只需要重绘
+     */
+    public void requestInvalidate() {
+        invalidateAll = true;
+        schedule();
+    }
+
+    /**
+     * 只重绘指定的区域，同一帧内的多个区域会合并
+     *
+     * @param left   left
+     * @param top    top
+     * @param right  right
+     * @param bottom bottom
+     */
+    public void requestInvalidate(int left, int top, int right, int bottom) {
+        dirty.union(left, top, right, bottom);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled) {
+            return;
+        }
+        TextView textView = textViewWeakReference.get();
+        if (textView == null) {
+            return;
+        }
+        scheduled = true;
+        ViewCompat.postOnAnimation(textView, this);
+    }
+
+    @Override
+    public void run() {
+        scheduled = false;
+        boolean relayout = this.relayout, invalidateAll = this.invalidateAll;
+        this.relayout = false;
+        this.invalidateAll = false;
+        TextView textView = textViewWeakReference.get();
+        if (textView == null) {
+            dirty.setEmpty();
+            return;
+        }
+        if (relayout) {
+            CharSequence cs = textView.getText();
+            textView.setText(cs);
+        } else if (invalidateAll) {
+            textView.invalidate();
+        } else if (!dirty.isEmpty()) {
+            textView.invalidate(dirty.left, dirty.top, dirty.right, dirty.bottom);
+        }
+        dirty.setEmpty();
+    }
+}
@@ -21,6 +21,14 @@ public class LongClickableLinkMovementMethod extends LinkMovementMethod {
     private static final int MIN_INTERVAL = 500;
 
     private long lastTime;
+    private ClickableSpanIndex index;
+
+    @Override
+    public void initialize(TextView widget, Spannable text) {
+        super.initialize(widget, text);
+        // setText时会重新调用，丢弃旧文本的索引
+        index = null;
+    }
 
     @Override
     public boolean onTouchEvent(TextView widget, Spannable buffer, MotionEvent event) {
@@ -41,17 +49,18 @@ public class LongClickableLinkMovementMethod extends LinkMovementMethod {
             int line = layout.getLineForVertical(y);
             int off = layout.getOffsetForHorizontal(line, x);
 
-            ClickableSpan[] link = buffer.getSpans(off, off, ClickableSpan.class);
+            index = ClickableSpanIndex.obtain(index, buffer, layout);
+            int i = index.find(off);
 
-            if (link.length != 0) {
+            if (i >= 0) {
                 long currTime = System.currentTimeMillis();
-                ClickableSpan l = link[0];
-                int ls = buffer.getSpanStart(l);
-                int le = buffer.getSpanEnd(l);
+                ClickableSpan l = index.getSpan(i);
+                int ls = index.getStart(i);
+                int le = index.getEnd(i);
                 // 判断点击的点是否在Image范围内
-                ImageSpan[] is = buffer.getSpans(ls, le, ImageSpan.class);
-                if (is.length > 0) {
-                    Rect r = is[0].getDrawable().getBounds();
+                ImageSpan is = index.getImage(i);
+                if (is != null) {
+                    Rect r = is.getDrawable().getBounds();
                     if (x < r.left || x > r.right) {
                         Selection.removeSelection(buffer);
                         return false;
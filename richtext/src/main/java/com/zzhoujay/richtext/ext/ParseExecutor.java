@@ -0,0 +1,116 @@
+package com.zzhoujay.richtext.ext;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台解析使用的默认线程池，线程数有上限
+ */
+public final class ParseExecutor {
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int POOL_SIZE = Math.max(1, Math.min(CPU_COUNT - 1, 3));
+    private static final int QUEUE_SIZE = 64;
+
+    private ParseExecutor() {
+    }
+
+    private static class ParseExecutorHolder {
+        private static final Executor EXECUTOR = create();
+    }
+
+    private static class PrefetchExecutorHolder {
+        private static final Executor EXECUTOR = createPrefetch();
+    }
+
+    private static class ParallelExecutorHolder {
+        private static final Executor EXECUTOR = createParallel();
+    }
+
+    /**
+     * 获取默认的解析线程池
+     *
+     * @return Executor
+     */
+    public static Executor getDefault() {
+        return ParseExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 获取预取使用的线程池，只有一个线程，队列已满时丢弃最早的任务
+     * 预取不是必须完成的任务，不能像解析一样在调用者线程（通常是主线程）中执行
+     *
+     * @return Executor
+     */
+    public static Executor getPrefetch() {
+        return PrefetchExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 获取分段并行解析使用的线程池，线程数为CPU核数减一，调用者线程也参与解析
+     *
+     * @return Executor
+     */
+    public static Executor getParallel() {
+        return ParallelExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * 分段并行解析时使用的线程数，包括调用者线程
+     *
+     * @return 线程数
+     */
+    public static int getParallelism() {
+        return Math.max(2, CPU_COUNT);
+    }
+
+    private static Executor createParallel() {
+        int size = Math.max(1, CPU_COUNT - 1);
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_SIZE), new ParseThreadFactory("RichText-segment-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static Executor createPrefetch() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_SIZE), new ParseThreadFactory("RichText-prefetch-"),
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    private static Executor create() {
+        // 等待队列不限长度，into总是在主线程中调用，不能像CallerRunsPolicy一样在调用者线程中解析
+        // 已经过期的任务在开始时检查TextView的绑定后直接返回，排队的任务很快就会被消耗
+        return new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ParseThreadFactory("RichText-parse-"));
+    }
+
+    private static class ParseThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger(1);
+        private final String prefix;
+
+        ParseThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.zzhoujay.richtext.ext;
+
+import android.content.Context;
+import android.graphics.BitmapFactory;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.Target;
+import com.zzhoujay.richtext.PrefetchConfig;
+import com.zzhoujay.richtext.cache.ImageSizeCache;
+import com.zzhoujay.richtext.cache.RichCacheManager;
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanRecord;
+import com.zzhoujay.richtext.parser.HtmlConverter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在后台预先解析Html并下载其中的图片，之后into时直接使用解析结果，图片的占位大小也已经确定
+ */
+public final class Prefetcher implements Runnable {
+
+    private final Context context;
+    private final List<String> sources;
+    private final PrefetchConfig config;
+
+    private Prefetcher(Context context, List<String> sources, PrefetchConfig config) {
+        this.context = context;
+        this.sources = sources;
+        this.config = config;
+    }
+
+    /**
+     * 提交预取任务，可以在主线程中调用
+     *
+     * @param context context
+     * @param sources Html源文本
+     * @param config  配置
+     */
+    public static void prefetch(Context context, Collection<String> sources, PrefetchConfig config) {
+        if (sources == null || sources.isEmpty()) {
+            return;
+        }
+        Executor executor = config.getExecutor() == null ? ParseExecutor.getPrefetch() : config.getExecutor();
+        // 复制一份，调用者之后修改集合不影响预取
+        executor.execute(new Prefetcher(context.getApplicationContext(), new ArrayList<>(sources), config));
+    }
+
+    @Override
+    public void run() {
+        RichCacheManager cache = RichCacheManager.getCache();
+        int chars = 0;
+        int images = 0;
+        for (String source : sources) {
+            if (source == null) {
+                continue;
+            }
+            chars += source.length();
+            if (chars > config.getMaxChars()) {
+                break;
+            }
+            String key = RichCacheManager.generateDocumentKey(source);
+            RichDocument document = cache.getDocument(key);
+            if (document == null) {
+                document = HtmlConverter.toDocument(source);
+                cache.putDocument(key, document);
+            }
+            for (SpanRecord record : document.getSpans()) {
+                if (images >= config.getMaxImages()) {
+                    break;
+                }
+                if (record.getType() == SpanRecord.TYPE_IMAGE && fetchImage(record.getPayload())) {
+                    images++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 下载图片到Glide的磁盘缓存并记录图片的尺寸
+     *
+     * @param src 图片地址
+     * @return true:发起了下载
+     */
+    private boolean fetchImage(String src) {
+        if (src == null || DataUri.isDataUri(src) || ImageSizeCache.getCache().get(src) != null) {
+            // data URI不需要下载，已经知道尺寸的图片已经加载过
+            return false;
+        }
+        try {
+            File file = Glide.with(context).load(src).downloadOnly(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL)
+                    .get(config.getImageTimeout(), TimeUnit.MILLISECONDS);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+            if (options.outWidth > 0 && options.outHeight > 0) {
+                ImageSizeCache.getCache().put(src, options.outWidth, options.outHeight, "image/gif".equals(options.outMimeType));
+            }
+        } catch (Exception e) {
+            // 预取失败不影响之后的正常加载
+        }
+        return true;
+    }
+}
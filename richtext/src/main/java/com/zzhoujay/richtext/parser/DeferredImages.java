@@ -0,0 +1,64 @@
+package com.zzhoujay.richtext.parser;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.text.Html;
+import android.text.SpannableStringBuilder;
+import android.text.style.ImageSpan;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 外部库解析Markdown时图片先使用空的占位，解析完成后再按顺序从真正的ImageGetter获取
+ * 用于并行解析和摘要，保证ImageGetter在调用者线程中按文档顺序调用，并且只请求最终显示的图片
+ */
+final class DeferredImages {
+
+    static final Html.ImageGetter PLACEHOLDER_GETTER = new Html.ImageGetter() {
+        @Override
+        public Drawable getDrawable(String source) {
+            return new ColorDrawable(Color.TRANSPARENT);
+        }
+    };
+
+    private DeferredImages() {
+    }
+
+    /**
+     * 按位置排序的全部ImageSpan
+     *
+     * @param ssb 解析结果
+     * @return ImageSpan
+     */
+    static ImageSpan[] sortedImages(final SpannableStringBuilder ssb) {
+        ImageSpan[] imageSpans = ssb.getSpans(0, ssb.length(), ImageSpan.class);
+        Arrays.sort(imageSpans, new Comparator<ImageSpan>() {
+            @Override
+            public int compare(ImageSpan a, ImageSpan b) {
+                return ssb.getSpanStart(a) - ssb.getSpanStart(b);
+            }
+        });
+        return imageSpans;
+    }
+
+    /**
+     * 把占位的ImageSpan替换为ImageGetter返回的图片
+     *
+     * @param ssb         解析结果
+     * @param imageGetter ImageGetter
+     */
+    static void resolve(SpannableStringBuilder ssb, Html.ImageGetter imageGetter) {
+        for (ImageSpan imageSpan : sortedImages(ssb)) {
+            int start = ssb.getSpanStart(imageSpan);
+            int end = ssb.getSpanEnd(imageSpan);
+            int flags = ssb.getSpanFlags(imageSpan);
+            ssb.removeSpan(imageSpan);
+            Drawable drawable = imageGetter.getDrawable(imageSpan.getSource());
+            if (drawable != null) {
+                ssb.setSpan(new ImageSpan(drawable, imageSpan.getSource(), imageSpan.getVerticalAlignment()), start, end, flags);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.zzhoujay.richtext.parser;
+
+import android.text.Html;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.ImageSpan;
+
+import com.zzhoujay.richtext.ExcerptConfig;
+
+/**
+ * 摘要模式的解析，只解析开头的一部分并在限制的位置截断
+ * ImageGetter只会收到截断位置之前的图片
+ */
+public final class ExcerptParser {
+
+    private ExcerptParser() {
+    }
+
+    /**
+     * 解析摘要
+     *
+     * @param parser      解析器
+     * @param source      源文本
+     * @param config      摘要的配置
+     * @param imageGetter ImageGetter
+     * @return Spanned
+     */
+    public static Spanned parse(SpannedParser parser, String source, ExcerptConfig config, Html.ImageGetter imageGetter) {
+        if (parser instanceof RichHtmlParser) {
+            // 转换在达到限制后停止，span在截断之后才生成
+            return ((RichHtmlParser) parser).parse(ExcerptConverter.toDocument(source, config), imageGetter);
+        }
+        return parseMarkdown(parser, source, config, imageGetter);
+    }
+
+    /**
+     * Markdown由外部库解析，不能中途停止，只解析开头的块，解析后再截断
+     * 解析的结果还没有达到限制时加倍解析的长度重新解析，直到达到限制或者源文本全部解析
+     */
+    private static Spanned parseMarkdown(SpannedParser parser, String source, ExcerptConfig config, Html.ImageGetter imageGetter) {
+        int[] ends = MarkdownBlocks.split(source);
+        int maxBlocks = Math.min(ends.length, config.getMaxBlocks());
+        // 源文本的字符数和行数不少于显示的，先解析到源文本达到限制的块
+        int count = 0;
+        int lines = 0;
+        while (count < maxBlocks) {
+            int start = count == 0 ? 0 : ends[count - 1];
+            for (int i = start; i < ends[count]; i++) {
+                if (source.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+            count++;
+            if (ends[count - 1] >= config.getMaxChars() || lines >= config.getMaxLines()) {
+                break;
+            }
+        }
+        SpannableStringBuilder ssb;
+        int cut;
+        while (true) {
+            String head = count == 0 ? "" : (count < ends.length ? source.substring(0, ends[count - 1]) : source);
+            Spanned spanned = parser.parse(head, DeferredImages.PLACEHOLDER_GETTER);
+            ssb = spanned instanceof SpannableStringBuilder ? (SpannableStringBuilder) spanned : new SpannableStringBuilder(spanned);
+            cut = cutPosition(ssb, config);
+            if (cut >= 0 || count >= maxBlocks) {
+                break;
+            }
+            // 解析后的文本比源文本短，还没有达到限制，加倍解析的长度
+            int target = ends[count - 1] * 2;
+            do {
+                count++;
+            } while (count < maxBlocks && ends[count - 1] < target);
+        }
+        boolean more = count < ends.length;
+        boolean truncated = more;
+        if (cut < 0) {
+            cut = ssb.length();
+        } else {
+            for (int i = cut, length = ssb.length(); i < length && !truncated; i++) {
+                truncated = !Character.isWhitespace(ssb.charAt(i));
+            }
+        }
+        if (truncated) {
+            int end = cut;
+            while (end > 0 && Character.isWhitespace(ssb.charAt(end - 1))) {
+                end--;
+            }
+            // 截断位置之后的span和图片一起删除
+            ssb.delete(end, ssb.length());
+            if (config.getEllipsis() != null) {
+                ssb.append(config.getEllipsis());
+            }
+        }
+        DeferredImages.resolve(ssb, imageGetter);
+        return ssb;
+    }
+
+    /**
+     * 第一个达到的限制的位置
+     *
+     * @return 位置，没有达到限制时返回-1
+     */
+    private static int cutPosition(SpannableStringBuilder ssb, ExcerptConfig config) {
+        int cut = -1;
+        ImageSpan[] images = DeferredImages.sortedImages(ssb);
+        if (images.length > config.getMaxImages()) {
+            cut = ssb.getSpanStart(images[config.getMaxImages()]);
+        }
+        int length = cut < 0 ? ssb.length() : cut;
+        if (length > config.getMaxChars()) {
+            length = config.getMaxChars();
+            if (length > 0 && Character.isHighSurrogate(ssb.charAt(length - 1))) {
+                length--;
+            }
+            cut = length;
+        }
+        int lines = 0;
+        for (int i = 0; i < length; i++) {
+            if (ssb.charAt(i) == '\n' && ++lines >= config.getMaxLines()) {
+                return i;
+            }
+        }
+        return cut;
+    }
+
+}
@@ -5,7 +5,10 @@ import android.text.Spanned;
 
 /**
  * Created by zhou on 16-7-27.
+ *
+ * @deprecated RichText已经使用{@link RichHtmlParser}解析Html，不再使用android.text.Html
  */
+@Deprecated
 public class Html2SpannedParser implements SpannedParser {
 
     private Html.TagHandler tagHandler;
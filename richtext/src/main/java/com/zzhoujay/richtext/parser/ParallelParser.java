@@ -0,0 +1,72 @@
+package com.zzhoujay.richtext.parser;
+
+import android.text.Html;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.ext.ParseExecutor;
+import com.zzhoujay.richtext.ext.SegmentTasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * 在顶层的块之间把长文本切分成几段并行解析，再按顺序拼接
+ * ImageGetter只在调用者线程中按图片在文档中的顺序调用，图片序号和ImageHolder的位置与整篇解析相同
+ */
+public final class ParallelParser {
+
+    // 每一段的最小长度，太短的段并行的开销大于收益
+    private static final int MIN_SEGMENT_SIZE = 8 * 1024;
+
+    private ParallelParser() {
+    }
+
+    /**
+     * 分段并行解析
+     *
+     * @param parser      解析器
+     * @param source      源文本
+     * @param imageGetter ImageGetter
+     * @return Spanned
+     */
+    public static Spanned parse(SpannedParser parser, String source, Html.ImageGetter imageGetter) {
+        int segmentSize = Math.max(MIN_SEGMENT_SIZE, source.length() / (ParseExecutor.getParallelism() * 2));
+        if (parser instanceof RichHtmlParser) {
+            // Html的分段只转换为RichDocument，span在拼接后按顺序生成
+            RichDocument document = ParallelConverter.toDocument(source, segmentSize, ParseExecutor.getParallel());
+            return ((RichHtmlParser) parser).parse(document, imageGetter);
+        }
+        int[] ends = MarkdownBlocks.segments(source, segmentSize);
+        if (ends.length == 1) {
+            return parser.parse(source, imageGetter);
+        }
+        return parseSegments(parser, source, ends, imageGetter);
+    }
+
+    /**
+     * Markdown由外部库解析，各段解析时图片先使用空的占位，拼接后再按顺序从ImageGetter获取
+     */
+    private static Spanned parseSegments(final SpannedParser parser, final String source, int[] ends, Html.ImageGetter imageGetter) {
+        List<Callable<Spanned>> tasks = new ArrayList<>(ends.length);
+        for (int i = 0; i < ends.length; i++) {
+            final int start = i == 0 ? 0 : ends[i - 1];
+            final int end = ends[i];
+            tasks.add(new Callable<Spanned>() {
+                @Override
+                public Spanned call() {
+                    return parser.parse(source.substring(start, end), DeferredImages.PLACEHOLDER_GETTER);
+                }
+            });
+        }
+        List<Spanned> segments = SegmentTasks.invokeAll(tasks, ParseExecutor.getParallel());
+        SpannableStringBuilder ssb = new SpannableStringBuilder();
+        for (Spanned segment : segments) {
+            ssb.append(segment);
+        }
+        DeferredImages.resolve(ssb, imageGetter);
+        return ssb;
+    }
+}
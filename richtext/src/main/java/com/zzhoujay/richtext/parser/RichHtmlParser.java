@@ -0,0 +1,249 @@
+package com.zzhoujay.richtext.parser;
+
+import android.text.Editable;
+import android.text.Html;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.widget.TextView;
+
+import com.zzhoujay.richtext.cache.RichDocument;
+import com.zzhoujay.richtext.cache.SpanCodec;
+import com.zzhoujay.richtext.cache.SpanRecord;
+import com.zzhoujay.richtext.spans.ClickableSpanFactory;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * 使用HtmlConverter解析Html，代替Html.fromHtml
+ * 不经过TagSoup和SAX，文本只生成一次，所有span在最后一次性设置
+ */
+public class RichHtmlParser implements SpannedParser {
+
+    private final SoftReference<TextView> textViewSoftReference;
+    private final ClickableSpanFactory clickableSpanFactory;
+
+    public RichHtmlParser(TextView textView) {
+        this(textView, null);
+    }
+
+    /**
+     * @param textView             textView
+     * @param clickableSpanFactory 不为null时图片和链接直接生成可点击的span
+     */
+    public RichHtmlParser(TextView textView, ClickableSpanFactory clickableSpanFactory) {
+        this.textViewSoftReference = new SoftReference<>(textView);
+        this.clickableSpanFactory = clickableSpanFactory;
+    }
+
+    @Override
+    public Spanned parse(String source, Html.ImageGetter imageGetter) {
+        SpannedCollector collector = new SpannedCollector(imageGetter, textViewSoftReference.get(), clickableSpanFactory);
+        String text = HtmlConverter.convert(source, collector);
+        return collector.build(text);
+    }
+
+    /**
+     * 从HtmlConverter生成的RichDocument还原，和直接解析Html的结果相同
+     *
+     * @param document    {@link HtmlConverter#toDocument(String)}的结果
+     * @param imageGetter ImageGetter
+     * @return Spanned
+     */
+    public Spanned parse(RichDocument document, Html.ImageGetter imageGetter) {
+        SpannedCollector collector = new SpannedCollector(imageGetter, textViewSoftReference.get(), clickableSpanFactory);
+        for (SpanRecord record : document.getSpans()) {
+            collector.setSpan(record.getType(), record.getStart(), record.getEnd(), record.getValue(), record.getPayload());
+        }
+        return collector.build(document.getText());
+    }
+
+    /**
+     * 创建分段解析的会话，Html可以分多次解析，每次的结果追加到之前的结果之后
+     *
+     * @param imageGetter ImageGetter
+     * @return Session
+     */
+    public Session newSession(Html.ImageGetter imageGetter) {
+        return newSession(imageGetter, "");
+    }
+
+    /**
+     * 创建接在已有文本之后的分段解析会话，用于只重新解析文档中间的几块
+     * 返回的第一个Chunk需要应用到以context开头的Editable中
+     *
+     * @param imageGetter ImageGetter
+     * @param context     前文的结尾，{@link HtmlConverter#contextBefore(CharSequence, int)}的结果
+     * @return Session
+     */
+    public Session newSession(Html.ImageGetter imageGetter, String context) {
+        return new Session(new SpannedCollector(imageGetter, textViewSoftReference.get(), clickableSpanFactory), context);
+    }
+
+    /**
+     * 分段解析的会话，图片序号、列表序号和未结束的标签在各段之间保持
+     * feed可以在后台线程中调用，返回的Chunk需要按顺序在主线程中应用
+     */
+    public static class Session {
+
+        private final SpannedCollector collector;
+        private final HtmlConverter converter;
+        private int base;
+
+        Session(SpannedCollector collector, String context) {
+            this.collector = collector;
+            this.converter = new HtmlConverter(collector, context);
+            this.base = context.length();
+        }
+
+        /**
+         * 解析一段Html
+         *
+         * @param html html片段，不能在标签或实体的中间截断
+         * @return 新增的内容
+         */
+        public Chunk feed(String html) {
+            converter.feed(html);
+            return flush();
+        }
+
+        /**
+         * 结束所有未结束的标签
+         *
+         * @return 新增的内容
+         */
+        public Chunk finish() {
+            converter.finish();
+            return flush();
+        }
+
+        /**
+         * 目前为止解析出的文本长度
+         *
+         * @return length
+         */
+        public int length() {
+            return converter.length();
+        }
+
+        private Chunk flush() {
+            Chunk chunk = collector.flush(base, converter.substring(base));
+            base = converter.length();
+            return chunk;
+        }
+    }
+
+    /**
+     * 一次分段解析新增的内容：追加的文本和它上面的span，以及开始于之前文本中的span
+     */
+    public static class Chunk {
+
+        private final SpannableStringBuilder tail;
+        private final Object[] spans;
+        private final int[] starts;
+        private final int[] ends;
+
+        Chunk(SpannableStringBuilder tail, Object[] spans, int[] starts, int[] ends) {
+            this.tail = tail;
+            this.spans = spans;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        /**
+         * 追加到已有的文本中，需要在主线程中调用
+         *
+         * @param editable 之前所有Chunk追加到的文本
+         */
+        public void applyTo(Editable editable) {
+            if (tail.length() > 0) {
+                editable.append(tail);
+            }
+            for (int i = 0; i < spans.length; i++) {
+                editable.setSpan(spans[i], starts[i], ends[i], Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+        }
+
+        /**
+         * 新增的文本和span
+         *
+         * @return SpannableStringBuilder
+         */
+        public SpannableStringBuilder getTail() {
+            return tail;
+        }
+
+        public boolean isEmpty() {
+            return tail.length() == 0 && spans.length == 0;
+        }
+    }
+
+    /**
+     * 生成Android的span，图片在这里请求，保证ImageGetter按文档顺序调用
+     */
+    private static class SpannedCollector extends SpanCollector {
+
+        private final Html.ImageGetter imageGetter;
+        private final TextView textView;
+        private final ClickableSpanFactory clickableSpanFactory;
+
+        SpannedCollector(Html.ImageGetter imageGetter, TextView textView, ClickableSpanFactory clickableSpanFactory) {
+            super(clickableSpanFactory != null);
+            this.imageGetter = imageGetter;
+            this.textView = textView;
+            this.clickableSpanFactory = clickableSpanFactory;
+        }
+
+        @Override
+        protected Object createSpan(int type, int value, String payload) {
+            return SpanCodec.createSpan(type, value, payload, imageGetter, textView);
+        }
+
+        @Override
+        protected Object createImageClickSpan(String source, int index) {
+            return clickableSpanFactory.createImageSpan(source, index);
+        }
+
+        @Override
+        protected Object createUrlClickSpan(String url) {
+            return clickableSpanFactory.createUrlSpan(url);
+        }
+
+        /**
+         * 取出目前收集到的span，位置在base之后的span放到新增的文本上，其余的单独返回
+         */
+        Chunk flush(int base, String text) {
+            SpannableStringBuilder tail = new SpannableStringBuilder(text);
+            int count = size();
+            int late = 0;
+            for (int i = 0; i < count; i++) {
+                if (startAt(i) < base) {
+                    late++;
+                }
+            }
+            Object[] lateSpans = new Object[late];
+            int[] lateStarts = new int[late];
+            int[] lateEnds = new int[late];
+            int j = 0;
+            for (int i = 0; i < count; i++) {
+                if (startAt(i) < base) {
+                    lateSpans[j] = spanAt(i);
+                    lateStarts[j] = startAt(i);
+                    lateEnds[j] = endAt(i);
+                    j++;
+                } else {
+                    tail.setSpan(spanAt(i), startAt(i) - base, endAt(i) - base, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                }
+            }
+            clear();
+            return new Chunk(tail, lateSpans, lateStarts, lateEnds);
+        }
+
+        SpannableStringBuilder build(String text) {
+            SpannableStringBuilder ssb = new SpannableStringBuilder(text);
+            for (int i = 0, count = size(); i < count; i++) {
+                ssb.setSpan(spanAt(i), startAt(i), endAt(i), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+            return ssb;
+        }
+    }
+}
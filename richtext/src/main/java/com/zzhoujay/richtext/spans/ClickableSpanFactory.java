@@ -0,0 +1,24 @@
+package com.zzhoujay.richtext.spans;
+
+/**
+ * 解析时直接生成可点击的span，避免解析完成后再遍历替换
+ */
+public interface ClickableSpanFactory {
+
+    /**
+     * 图片的点击span，按图片在文档中出现的顺序调用
+     *
+     * @param source 图片地址
+     * @param index  图片在文档中的序号
+     * @return LongClickableSpan
+     */
+    LongClickableSpan createImageSpan(String source, int index);
+
+    /**
+     * 链接的点击span
+     *
+     * @param url 链接地址
+     * @return LongCallableURLSpan
+     */
+    LongCallableURLSpan createUrlSpan(String url);
+}
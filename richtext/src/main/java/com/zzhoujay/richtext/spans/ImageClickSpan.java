@@ -0,0 +1,52 @@
+package com.zzhoujay.richtext.spans;
+
+import android.view.View;
+
+import com.zzhoujay.richtext.callback.OnImageClickListener;
+import com.zzhoujay.richtext.callback.OnImageLongClickListener;
+
+import java.util.List;
+
+/**
+ * 图片的点击span，只记录图片序号和本篇文档的图片地址表
+ * 回调在点击时从TextView的tag中取出，缓存的文档不会持有生成它的RichText
+ */
+public class ImageClickSpan extends LongClickableSpan {
+
+    public static final String TAG_IMAGE_CLICK = "rich_image_click";
+    public static final String TAG_IMAGE_LONG_CLICK = "rich_image_long_click";
+
+    private final int index;
+    private final ImageUrlTable imageUrls;
+
+    /**
+     * @param index     图片在文档中的序号
+     * @param imageUrls 本篇文档的图片地址表，同一篇文档的span共用
+     */
+    public ImageClickSpan(int index, ImageUrlTable imageUrls) {
+        this.index = index;
+        this.imageUrls = imageUrls;
+    }
+
+    @Override
+    public void onClick(View widget) {
+        Object listener = widget.getTag(TAG_IMAGE_CLICK.hashCode());
+        if (listener instanceof OnImageClickListener) {
+            ((OnImageClickListener) listener).imageClicked(imageUrls.get(), index);
+        }
+    }
+
+    @Override
+    public boolean onLongClick(View widget) {
+        Object listener = widget.getTag(TAG_IMAGE_LONG_CLICK.hashCode());
+        return listener instanceof OnImageLongClickListener && ((OnImageLongClickListener) listener).imageLongClicked(imageUrls.get(), index);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<String> getImageUrls() {
+        return imageUrls.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.zzhoujay.richtext.spans;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 同一篇文档的图片点击span共用的图片地址表
+ * 解析过程中收集的地址不直接给span使用，每篇文档或者每一段解析完成后发布一份不可修改的副本，点击时只读取已经发布的副本
+ */
+public class ImageUrlTable {
+
+    private volatile List<String> urls = Collections.emptyList();
+
+    /**
+     * 发布解析到目前为止的图片地址，在解析所在的线程中调用
+     *
+     * @param urls 收集的图片地址，之后的修改不影响发布的副本
+     */
+    public void publish(List<String> urls) {
+        this.urls = Collections.unmodifiableList(new ArrayList<>(urls));
+    }
+
+    /**
+     * @return 最近一次发布的图片地址，不可修改
+     */
+    public List<String> get() {
+        return urls;
+    }
+}
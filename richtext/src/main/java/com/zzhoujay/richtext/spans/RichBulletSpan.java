@@ -0,0 +1,31 @@
+package com.zzhoujay.richtext.spans;
+
+import android.widget.TextView;
+
+import com.zzhoujay.markdown.style.MarkDownBulletSpan;
+
+/**
+ * Html中li标签生成的MarkDownBulletSpan，记录层级和序号，用于写入磁盘缓存
+ */
+public class RichBulletSpan extends MarkDownBulletSpan {
+
+    private final int level;
+    private final int index;
+
+    public RichBulletSpan(int level, int color, int index, TextView textView) {
+        super(level, color, index, textView);
+        this.level = level;
+        this.index = index;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return 有序列表中的序号，无序列表为-1
+     */
+    public int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,20 @@
+package com.zzhoujay.richtext.spans;
+
+import com.zzhoujay.markdown.style.CodeSpan;
+
+/**
+ * Html中code标签生成的CodeSpan，记录颜色，用于写入磁盘缓存
+ */
+public class RichCodeSpan extends CodeSpan {
+
+    private final int color;
+
+    public RichCodeSpan(int color) {
+        super(color);
+        this.color = color;
+    }
+
+    public int getColor() {
+        return color;
+    }
+}
@@ -1,12 +1,16 @@
 package com.zzhoujay.richtext.target;
 
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.widget.TextView;
 
+import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.target.SimpleTarget;
 import com.zzhoujay.richtext.ImageHolder;
+import com.zzhoujay.richtext.cache.ImageSizeCache;
 import com.zzhoujay.richtext.callback.ImageFixCallback;
 import com.zzhoujay.richtext.drawable.URLDrawable;
+import com.zzhoujay.richtext.ext.InvalidateScheduler;
 
 import java.lang.ref.WeakReference;
 
@@ -22,6 +26,8 @@ public abstract class ImageTarget<T> extends SimpleTarget<T> {
     final boolean autoFix;
     final WeakReference<ImageFixCallback> imageFixCallbackWeakReference;
     private final ImageLoadNotify imageLoadNotify;
+    private SharedImageTarget<T> sharedTarget;
+    private boolean recordSize;
 
     ImageTarget(TextView textView, URLDrawable urlDrawable, ImageHolder holder, boolean autoFix, ImageFixCallback imageFixCallback) {
         this(textView, urlDrawable, holder, autoFix, imageFixCallback, null);
@@ -45,10 +51,17 @@ public abstract class ImageTarget<T> extends SimpleTarget<T> {
             width = holder.getWidth();
             height = holder.getHeight();
         } else {
-            width = getRealWidth();
-            height = placeholder.getBounds().height();
-            if (height == 0) {
-                height = width / 2;
+            Rect bounds = getUrlDrawableBounds();
+            if (bounds != null && !bounds.isEmpty()) {
+                // 解析时已经根据缓存的图片尺寸设置了大小
+                width = bounds.width();
+                height = bounds.height();
+            } else {
+                width = getRealWidth();
+                height = placeholder.getBounds().height();
+                if (height == 0) {
+                    height = width / 2;
+                }
             }
         }
         placeholder.setBounds(0, 0, width, height);
@@ -56,9 +69,7 @@ public abstract class ImageTarget<T> extends SimpleTarget<T> {
         if (urlDrawable == null) {
             return;
         }
-        urlDrawable.setBounds(0, 0, width, height);
-        urlDrawable.setDrawable(placeholder);
-        resetText();
+        updateUrlDrawable(urlDrawable, placeholder, width, height);
     }
 
     @Override
@@ -82,13 +93,61 @@ public abstract class ImageTarget<T> extends SimpleTarget<T> {
         if (urlDrawable == null) {
             return;
         }
-        urlDrawable.setBounds(0, 0, width, height);
-        urlDrawable.setDrawable(errorDrawable);
-        resetText();
+        updateUrlDrawable(urlDrawable, errorDrawable, width, height);
         loadDone();
     }
 
-    public abstract void recycle();
+    /**
+     * 设置是否把加载到的图片尺寸记录到ImageSizeCache
+     * 只有没有指定解码大小的请求得到的是图片的原始尺寸，按宽度采样的尺寸由FitWidthDownsampler在解码前记录
+     *
+     * @param recordSize 默认false
+     */
+    public void setRecordSize(boolean recordSize) {
+        this.recordSize = recordSize;
+    }
+
+    /**
+     * 记录图片的原始尺寸
+     *
+     * @param width  宽
+     * @param height 高
+     * @param gif    是否是gif
+     */
+    void recordSize(int width, int height, boolean gif) {
+        if (recordSize) {
+            ImageSizeCache.getCache().put(holder.getSrc(), width, height, gif);
+        }
+    }
+
+    /**
+     * 关联共用的请求，回收时通过它释放图片
+     *
+     * @param sharedTarget SharedImageTarget
+     */
+    void attach(SharedImageTarget<T> sharedTarget) {
+        this.sharedTarget = sharedTarget;
+    }
+
+    public void recycle() {
+        if (sharedTarget != null) {
+            SharedImageTarget<T> st = sharedTarget;
+            sharedTarget = null;
+            st.release(this);
+        } else {
+            Glide.clear(this);
+        }
+    }
+
+    /**
+     * 是否加载到指定的Drawable中
+     *
+     * @param drawable ImageSpan中的Drawable
+     * @return true:是
+     */
+    public boolean isTargetOf(Drawable drawable) {
+        return urlDrawableWeakReference.get() == drawable;
+    }
 
     /**
      * 检查图片大小是否超过屏幕
@@ -116,11 +175,38 @@ public abstract class ImageTarget<T> extends SimpleTarget<T> {
         return tv.getWidth() - tv.getPaddingRight() - tv.getPaddingLeft();
     }
 
-    void resetText() {
+    /**
+     * 获取URLDrawable当前的大小
+     *
+     * @return bounds，URLDrawable已被回收时返回null
+     */
+    Rect getUrlDrawableBounds() {
+        URLDrawable urlDrawable = urlDrawableWeakReference.get();
+        return urlDrawable == null ? null : urlDrawable.getBounds();
+    }
+
+    /**
+     * 更新URLDrawable并刷新TextView，大小没有变化时只重绘不重新布局
+     *
+     * @param urlDrawable URLDrawable
+     * @param drawable    新的drawable
+     * @param width       宽
+     * @param height      高
+     */
+    void updateUrlDrawable(URLDrawable urlDrawable, Drawable drawable, int width, int height) {
+        Rect bounds = urlDrawable.getBounds();
+        boolean sizeChanged = bounds.width() != width || bounds.height() != height;
+        urlDrawable.setBounds(0, 0, width, height);
+        urlDrawable.setDrawable(drawable);
         TextView tv = textViewWeakReference.get();
-        if (tv != null) {
-            CharSequence cs = tv.getText();
-            tv.setText(cs);
+        if (tv == null) {
+            return;
+        }
+        InvalidateScheduler scheduler = InvalidateScheduler.from(tv);
+        if (sizeChanged) {
+            scheduler.requestLayout();
+        } else {
+            scheduler.requestInvalidate();
         }
     }
 
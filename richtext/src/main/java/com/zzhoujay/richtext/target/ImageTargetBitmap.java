@@ -5,7 +5,6 @@ import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.widget.TextView;
 
-import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.animation.GlideAnimation;
 import com.zzhoujay.richtext.ImageHolder;
 import com.zzhoujay.richtext.callback.ImageFixCallback;
@@ -27,11 +26,6 @@ public class ImageTargetBitmap extends ImageTarget<Bitmap> {
         super(textView, urlDrawable, holder, autoFix, imageFixCallback, imageLoadNotify);
     }
 
-    @Override
-    public void recycle() {
-        Glide.clear(this);
-    }
-
     @Override
     public void onResourceReady(Bitmap resource, GlideAnimation<? super Bitmap> glideAnimation) {
         TextView textView = textViewWeakReference.get();
@@ -39,6 +33,7 @@ public class ImageTargetBitmap extends ImageTarget<Bitmap> {
             return;
         }
         Drawable drawable = new BitmapDrawable(textView.getContext().getResources(), resource);
+        recordSize(resource.getWidth(), resource.getHeight(), false);
         if (!autoFix && (holder.getWidth() <= 0 || holder.getHeight() <= 0)) {
             holder.setWidth(resource.getWidth());
             holder.setHeight(resource.getHeight());
@@ -53,17 +48,16 @@ public class ImageTargetBitmap extends ImageTarget<Bitmap> {
         if (urlDrawable == null) {
             return;
         }
+        int width, height;
         if (autoFix || holder.isAutoFix()) {
-            int width = getRealWidth();
-            int height = (int) ((float) resource.getHeight() * width / resource.getWidth());
-            urlDrawable.setBounds(0, 0, width, height);
-            drawable.setBounds(0, 0, width, height);
+            width = getRealWidth();
+            height = (int) ((float) resource.getHeight() * width / resource.getWidth());
         } else {
-            drawable.setBounds(0, 0, holder.getWidth(), holder.getHeight());
-            urlDrawable.setBounds(0, 0, holder.getWidth(), holder.getHeight());
+            width = holder.getWidth();
+            height = holder.getHeight();
         }
-        urlDrawable.setDrawable(drawable);
-        resetText();
+        drawable.setBounds(0, 0, width, height);
+        updateUrlDrawable(urlDrawable, drawable, width, height);
         loadDone();
     }
 }
@@ -1,17 +1,15 @@
 package com.zzhoujay.richtext.target;
 
 import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
-import android.support.annotation.NonNull;
 import android.widget.TextView;
 
-import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.GlideDrawable;
 import com.bumptech.glide.load.resource.gif.GifDrawable;
 import com.bumptech.glide.request.animation.GlideAnimation;
 import com.zzhoujay.richtext.ImageHolder;
 import com.zzhoujay.richtext.callback.ImageFixCallback;
 import com.zzhoujay.richtext.drawable.URLDrawable;
+import com.zzhoujay.richtext.ext.GifScheduler;
 
 import java.lang.ref.SoftReference;
 
@@ -19,7 +17,7 @@ import java.lang.ref.SoftReference;
  * Created by zhou on 16-10-23.
  * ImageTarget Gif
  */
-public class ImageTargetGif extends ImageTarget<GifDrawable> implements Drawable.Callback {
+public class ImageTargetGif extends ImageTarget<GifDrawable> {
 
     private SoftReference<GifDrawable> gifDrawableSoftReference;
 
@@ -35,12 +33,17 @@ public class ImageTargetGif extends ImageTarget<GifDrawable> implements Drawable
 
     @Override
     public void recycle() {
-        Glide.clear(this);
+        super.recycle();
         if (gifDrawableSoftReference != null) {
             GifDrawable gifDrawable = gifDrawableSoftReference.get();
             if (gifDrawable != null) {
-                gifDrawable.setCallback(null);
-                gifDrawable.stop();
+                TextView textView = textViewWeakReference.get();
+                if (textView != null) {
+                    GifScheduler.from(textView).remove(gifDrawable);
+                } else {
+                    gifDrawable.setCallback(null);
+                    gifDrawable.stop();
+                }
             }
         }
     }
@@ -49,6 +52,7 @@ public class ImageTargetGif extends ImageTarget<GifDrawable> implements Drawable
     public void onResourceReady(GifDrawable resource, GlideAnimation<? super GifDrawable> glideAnimation) {
         gifDrawableSoftReference = new SoftReference<>(resource);
         Bitmap first = resource.getFirstFrame();
+        recordSize(first.getWidth(), first.getHeight(), true);
         ImageFixCallback imageFixCallback = imageFixCallbackWeakReference.get();
         if (!autoFix && (holder.getWidth() <= 0 || holder.getHeight() <= 0) && imageFixCallback != null) {
             holder.setWidth(first.getWidth());
@@ -59,40 +63,22 @@ public class ImageTargetGif extends ImageTarget<GifDrawable> implements Drawable
         if (urlDrawable == null) {
             return;
         }
+        int width, height;
         if (autoFix || holder.isAutoFix()) {
-            int width = getRealWidth();
-            int height = (int) ((float) first.getHeight() * width / first.getWidth());
-            urlDrawable.setBounds(0, 0, width, height);
-            resource.setBounds(0, 0, width, height);
+            width = getRealWidth();
+            height = (int) ((float) first.getHeight() * width / first.getWidth());
         } else {
-            resource.setBounds(0, 0, holder.getWidth(), holder.getHeight());
-            urlDrawable.setBounds(0, 0, holder.getWidth(), holder.getHeight());
+            width = holder.getWidth();
+            height = holder.getHeight();
         }
-        urlDrawable.setDrawable(resource);
-        if (holder.isAutoPlay()) {
-            resource.setCallback(this);
-            resource.start();
+        resource.setBounds(0, 0, width, height);
+        updateUrlDrawable(urlDrawable, resource, width, height);
+        TextView textView = textViewWeakReference.get();
+        if (holder.isAutoPlay() && textView != null) {
+            // 由GifScheduler根据可见区域决定是否播放
             resource.setLoopCount(GlideDrawable.LOOP_FOREVER);
+            GifScheduler.from(textView).add(resource, urlDrawable);
         }
-        resetText();
         loadDone();
     }
-
-    @Override
-    public void invalidateDrawable(@NonNull Drawable who) {
-        TextView textView = textViewWeakReference.get();
-        if (textView != null) {
-            textView.invalidate();
-        }
-    }
-
-    @Override
-    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
-
-    }
-
-    @Override
-    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
-
-    }
 }
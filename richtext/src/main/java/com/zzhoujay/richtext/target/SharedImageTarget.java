@@ -0,0 +1,162 @@
+package com.zzhoujay.richtext.target;
+
+import android.graphics.drawable.Drawable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.resource.gif.GifDrawable;
+import com.bumptech.glide.request.animation.GlideAnimation;
+import com.bumptech.glide.request.target.SimpleTarget;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 相同图片（src和解码尺寸都相同）共用的Glide请求，加载结果分发给所有等待中的ImageTarget
+ * 使用引用计数，最后一个ImageTarget回收时才释放图片；请求使用Application的Context发起，不会因为某一个页面销毁被清理
+ * 只在主线程中使用
+ */
+public class SharedImageTarget<T> extends SimpleTarget<T> {
+
+    private static final int STATE_WAITING = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_READY = 2;
+    private static final int STATE_FAILED = 3;
+
+    private static final HashMap<String, SharedImageTarget<?>> loading = new HashMap<>();
+
+    private final String key;
+    private final ArrayList<ImageTarget<T>> subscribers;
+    private int state;
+    private Drawable placeholder;
+    private Drawable errorDrawable;
+    private Exception exception;
+    private T resource;
+    private boolean resourceTaken;
+
+    private SharedImageTarget(String key) {
+        this.key = key;
+        this.subscribers = new ArrayList<>();
+        this.state = STATE_WAITING;
+    }
+
+    /**
+     * 获取正在进行中的请求
+     *
+     * @param key 请求的key，为null时不共用
+     * @return SharedImageTarget，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SharedImageTarget<T> get(String key) {
+        // key中包含了图片类型，相同key的请求加载的是同一种资源
+        return key == null ? null : (SharedImageTarget<T>) loading.get(key);
+    }
+
+    /**
+     * 创建新的请求，需要在订阅之后再交给Glide加载
+     *
+     * @param key 请求的key，为null时不共用
+     * @return SharedImageTarget
+     */
+    public static <T> SharedImageTarget<T> create(String key) {
+        SharedImageTarget<T> target = new SharedImageTarget<>(key);
+        if (key != null) {
+            loading.put(key, target);
+        }
+        return target;
+    }
+
+    /**
+     * 订阅加载结果，已经有结果时立即回调
+     *
+     * @param subscriber ImageTarget
+     */
+    public void subscribe(ImageTarget<T> subscriber) {
+        subscribers.add(subscriber);
+        subscriber.attach(this);
+        switch (state) {
+            case STATE_STARTED:
+                subscriber.onLoadStarted(placeholder);
+                break;
+            case STATE_READY:
+                subscriber.onResourceReady(resourceFor(), null);
+                break;
+            case STATE_FAILED:
+                subscriber.onLoadFailed(exception, errorDrawable);
+                break;
+        }
+    }
+
+    /**
+     * 取消订阅，没有订阅者时释放图片
+     *
+     * @param subscriber ImageTarget
+     */
+    void release(ImageTarget<T> subscriber) {
+        subscribers.remove(subscriber);
+        if (subscribers.isEmpty()) {
+            detach();
+            resource = null;
+            Glide.clear(this);
+        }
+    }
+
+    private void detach() {
+        if (key != null && loading.get(key) == this) {
+            loading.remove(key);
+        }
+    }
+
+    /**
+     * Bitmap可以共用；GifDrawable有自己的帧状态和Callback，除第一个外都复制一份
+     */
+    @SuppressWarnings("unchecked")
+    private T resourceFor() {
+        if (resourceTaken && resource instanceof GifDrawable) {
+            Drawable.ConstantState constantState = ((GifDrawable) resource).getConstantState();
+            if (constantState != null) {
+                return (T) constantState.newDrawable();
+            }
+        }
+        resourceTaken = true;
+        return resource;
+    }
+
+    @Override
+    public void onLoadStarted(Drawable placeholder) {
+        state = STATE_STARTED;
+        this.placeholder = placeholder;
+        for (int i = 0; i < subscribers.size(); i++) {
+            subscribers.get(i).onLoadStarted(placeholder);
+        }
+    }
+
+    @Override
+    public void onLoadFailed(Exception e, Drawable errorDrawable) {
+        state = STATE_FAILED;
+        this.exception = e;
+        this.errorDrawable = errorDrawable;
+        // 失败的请求不再共用，后面出现的相同图片重新加载
+        detach();
+        for (int i = 0; i < subscribers.size(); i++) {
+            subscribers.get(i).onLoadFailed(e, errorDrawable);
+        }
+    }
+
+    @Override
+    public void onResourceReady(T resource, GlideAnimation<? super T> glideAnimation) {
+        state = STATE_READY;
+        this.resource = resource;
+        this.resourceTaken = false;
+        for (int i = 0; i < subscribers.size(); i++) {
+            subscribers.get(i).onResourceReady(resourceFor(), glideAnimation);
+        }
+    }
+
+    @Override
+    public void onLoadCleared(Drawable placeholder) {
+        // 请求已经被清理，图片不再可用，后面出现的相同图片重新加载
+        state = STATE_WAITING;
+        resource = null;
+        detach();
+    }
+}